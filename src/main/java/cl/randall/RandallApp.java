@@ -7,9 +7,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.ServletComponentScan;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ServletComponentScan
+@EnableScheduling
 public class RandallApp {
     
     private static final Logger logger = LoggerFactory.getLogger(RandallApp.class);
@@ -26,6 +28,14 @@ public class RandallApp {
         logger.info("🔗 Endpoints disponibles:");
         logger.info("   - GET  /grafo/estado");
         logger.info("   - GET  /grafo/tiempo/{origen}/{destino}");
+        logger.info("   - POST /grafo/tiempos");
+        logger.info("   - POST /grafo/conexiones/tiempos");
+        logger.info("   - GET  /grafo/rutas/{origen}/{destino}");
+        logger.info("   - GET  /grafo/consultas-lentas");
         logger.info("   - POST /bulk-upload");
+        logger.info("   - GET  /grafos");
+        logger.info("   - GET  /replicacion/version");
+        logger.info("   - GET  /replicacion/estado");
+        logger.info("   - GET  /actuator/health/readiness");
     }
 }
@@ -0,0 +1,173 @@
+package cl.randall.config;
+
+import cl.randall.models.RespuestaRuta;
+import cl.randall.models.RespuestaRutasAlternativas;
+import cl.randall.models.ResultadoRuta;
+import cl.randall.services.GrafoService;
+import cl.randall.services.ReplicacionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fase de arranque: carga el grafo inicial y calienta el JIT antes de aceptar tráfico.
+ *
+ * Se ejecuta con el servidor web ya levantado pero antes de que Spring publique
+ * ACCEPTING_TRAFFIC, por lo que /actuator/health/readiness responde OUT_OF_SERVICE
+ * hasta que el calentamiento termina.
+ */
+@Component
+public class FaseArranque implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FaseArranque.class);
+
+    private final GrafoService grafoService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReplicacionService replicacionService;
+
+    @Value("${randall.grafo.archivo:grafos_light.csv}")
+    private String archivoGrafo;
+
+    @Value("${randall.replicacion.espera-inicial-ms:60000}")
+    private long esperaReplicacionMs;
+
+    @Value("${randall.calentamiento.habilitado:true}")
+    private boolean calentamientoHabilitado;
+
+    @Value("${randall.calentamiento.duracion-lote-ms:200}")
+    private long duracionLoteMs;
+
+    @Value("${randall.calentamiento.min-iteraciones:2000}")
+    private int minIteraciones;
+
+    @Value("${randall.calentamiento.max-iteraciones:5000000}")
+    private int maxIteraciones;
+
+    @Value("${randall.calentamiento.tolerancia:0.10}")
+    private double tolerancia;
+
+    @Value("${randall.calentamiento.lotes-estables:3}")
+    private int lotesEstables;
+
+    @Value("${randall.calentamiento.tiempo-maximo-ms:30000}")
+    private long tiempoMaximoMs;
+
+    public FaseArranque(GrafoService grafoService, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                        ReplicacionService replicacionService) {
+        this.grafoService = grafoService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.replicacionService = replicacionService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        long inicioCarga = System.currentTimeMillis();
+        if (replicacionService.isSeguidor()) {
+            // Un seguidor no carga su archivo local: sirve el grafo del primario. La replicación
+            // programada ya está activa, así que se espera a que aplique la primera versión
+            if (!replicacionService.esperarPrimeraReplicacion(esperaReplicacionMs)) {
+                throw new IllegalStateException("No se recibió el grafo del primario en " + esperaReplicacionMs + "ms");
+            }
+            logger.info("Grafo inicial replicado desde el primario en {}ms", System.currentTimeMillis() - inicioCarga);
+        } else {
+            grafoService.cargarGrafoDesdeCSV(archivoGrafo);
+            logger.info("Grafo inicial {} cargado en {}ms", archivoGrafo, System.currentTimeMillis() - inicioCarga);
+        }
+
+        if (calentamientoHabilitado) {
+            calentar();
+        } else {
+            logger.info("Calentamiento deshabilitado");
+        }
+        // Spring publica ACCEPTING_TRAFFIC al terminar los ApplicationRunner
+    }
+
+    // Repite consultas sintéticas en lotes de duración fija hasta que la latencia media por lote se estabiliza
+    private void calentar() throws Exception {
+        List<String> ubicaciones = grafoService.obtenerUbicacionesUnicas();
+        if (ubicaciones.isEmpty()) {
+            logger.warn("Calentamiento omitido: el grafo inicial no tiene ubicaciones");
+            return;
+        }
+
+        Random random = new Random(42);
+        long inicio = System.currentTimeMillis();
+        int iteraciones = 0;
+        int lotesConsecutivosEstables = 0;
+        double mejorMedia = Double.NaN;
+        double mediaActual = Double.NaN;
+        long bytesSerializados = 0;
+
+        while (iteraciones < maxIteraciones && System.currentTimeMillis() - inicio < tiempoMaximoMs) {
+            // Lotes por tiempo y no por cantidad: en grafos pequeños un lote de pocas consultas dura
+            // menos de lo que varía el reloj y nunca se vería estable
+            long inicioLote = System.nanoTime();
+            long finLote = inicioLote + duracionLoteMs * 1_000_000;
+            int consultasLote = 0;
+            do {
+                for (int i = 0; i < 32; i++) {
+                    String origen = ubicaciones.get(random.nextInt(ubicaciones.size()));
+                    String destino = ubicaciones.get(random.nextInt(ubicaciones.size()));
+                    bytesSerializados += consultaSintetica(origen, destino, iteraciones + consultasLote);
+                    consultasLote++;
+                }
+            } while (System.nanoTime() < finLote);
+            iteraciones += consultasLote;
+            mediaActual = (System.nanoTime() - inicioLote) / (double) consultasLote;
+
+            // Estable cuando la media queda dentro de la tolerancia de la mejor media anterior durante
+            // varios lotes seguidos; una mejora mayor a la tolerancia indica que el JIT sigue compilando
+            if (!Double.isNaN(mejorMedia) && Math.abs(mediaActual - mejorMedia) <= tolerancia * mejorMedia) {
+                lotesConsecutivosEstables++;
+            } else {
+                lotesConsecutivosEstables = 0;
+            }
+            mejorMedia = Double.isNaN(mejorMedia) ? mediaActual : Math.min(mejorMedia, mediaActual);
+
+            if (iteraciones >= minIteraciones && lotesConsecutivosEstables >= lotesEstables) {
+                break;
+            }
+        }
+
+        // Los árboles de las consultas sintéticas no deben ocupar el caché de las consultas reales
+        grafoService.vaciarArbolesEnCache();
+
+        logger.info("Calentamiento {} en {}ms: {} iteraciones, latencia media final {}us, {} bytes serializados",
+            lotesConsecutivosEstables >= lotesEstables ? "estabilizado" : "detenido por límite",
+            System.currentTimeMillis() - inicio, iteraciones,
+            String.format("%.1f", mediaActual / 1000.0), bytesSerializados);
+    }
+
+    // Recorre el cálculo de ruta y la serialización de la respuesta, como lo hace el controlador
+    private long consultaSintetica(String origen, String destino, int iteracion) throws Exception {
+        // Una de cada diez consultas ejercita también las rutas alternativas
+        if (iteracion % 10 == 0) {
+            List<ResultadoRuta> rutas = grafoService.encontrarRutasAlternativas(origen, destino, 3);
+            return objectMapper.writeValueAsBytes(new RespuestaRutasAlternativas(origen, destino, rutas)).length;
+        }
+
+        // La mitad de las consultas vacía antes el caché de árboles y repite el origen, para calentar
+        // los tres caminos: Dijkstra hasta el destino, el cálculo del árbol completo y su lectura
+        if (iteracion % 2 == 1) {
+            grafoService.vaciarArbolesEnCache();
+            grafoService.encontrarRutaMasRapida(origen, destino);
+            grafoService.encontrarRutaMasRapida(origen, destino);
+        }
+        ResultadoRuta resultado = grafoService.encontrarRutaMasRapida(origen, destino);
+        return objectMapper.writeValueAsBytes(new RespuestaRuta(origen, destino, resultado, null)).length;
+    }
+}
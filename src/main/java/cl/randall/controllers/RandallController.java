@@ -1,15 +1,27 @@
 package cl.randall.controllers;
 
 import cl.randall.models.ConexionGrafo;
+import cl.randall.models.ConsultaLenta;
+import cl.randall.models.ConsultaRuta;
+import cl.randall.models.EstadisticasBusqueda;
+import cl.randall.models.EstadisticasReparacion;
+import cl.randall.models.RespuestaLote;
+import cl.randall.models.RespuestaRuta;
+import cl.randall.models.RespuestaRutasAlternativas;
 import cl.randall.models.ResultadoRuta;
 import cl.randall.services.GrafoService;
+import cl.randall.services.RegistroConsultasLentas;
+import cl.randall.services.RegistroGrafos;
+import cl.randall.services.ReplicacionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -29,11 +41,60 @@ public class RandallController {
 
     private static final Logger logger = LoggerFactory.getLogger(RandallController.class);
     
+    // Máximo de rutas alternativas que se calculan por consulta
+    private static final int MAX_RUTAS_ALTERNATIVAS = 10;
+    
+    // Máximo de pares origen-destino por lote
+    private static final int MAX_CONSULTAS_LOTE = 1000;
+    
+    // Máximo de cambios de tiempo por lote
+    private static final int MAX_CAMBIOS_LOTE = 10000;
+    
     private final GrafoService grafoService;
+    private final RegistroConsultasLentas registroConsultasLentas;
+    private final ReplicacionService replicacionService;
+    private final RegistroGrafos registroGrafos;
     
     @Autowired
-    public RandallController(GrafoService grafoService) {
+    public RandallController(GrafoService grafoService, RegistroConsultasLentas registroConsultasLentas,
+                             ReplicacionService replicacionService, RegistroGrafos registroGrafos) {
         this.grafoService = grafoService;
+        this.registroConsultasLentas = registroConsultasLentas;
+        this.replicacionService = replicacionService;
+        this.registroGrafos = registroGrafos;
+    }
+    
+    // Resuelve el grafo de la consulta: el grafo principal si no se indica nombre
+    private GrafoService resolverGrafo(String nombre) throws IOException {
+        if (nombre == null) {
+            return grafoService;
+        }
+        // Los grafos con nombre no se replican: un seguidor nunca los tiene
+        if (replicacionService.isSeguidor()) {
+            throw new GrafoNoReplicadoException();
+        }
+        GrafoService servicio = registroGrafos.obtener(nombre);
+        if (servicio == null) {
+            throw new GrafoNoEncontradoException(nombre);
+        }
+        return servicio;
+    }
+    
+    // Registra la duración de la consulta en las métricas del grafo con nombre
+    private void registrarConsulta(String nombre, long inicio) {
+        if (nombre != null) {
+            registroGrafos.registrarConsulta(nombre, System.nanoTime() - inicio);
+        }
+    }
+    
+    @ExceptionHandler(GrafoNoEncontradoException.class)
+    public ResponseEntity<?> manejarGrafoNoEncontrado(GrafoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("mensaje", e.getMessage()));
+    }
+    
+    @ExceptionHandler(GrafoNoReplicadoException.class)
+    public ResponseEntity<?> manejarGrafoNoReplicado(GrafoNoReplicadoException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("mensaje", e.getMessage()));
     }
     
     @Operation(summary = "Obtener estado del grafo", description = "Retorna información sobre el grafo cargado en memoria")
@@ -42,9 +103,12 @@ public class RandallController {
             content = @Content(schema = @Schema(implementation = Map.class)))
     })
     @RequestMapping(value = "/grafo/estado", method = RequestMethod.GET)
-    public ResponseEntity<?> obtenerEstadoGrafo() {
-        List<ConexionGrafo> todasLasConexiones = grafoService.obtenerTodasLasConexiones();
-        List<String> ubicaciones = grafoService.obtenerUbicacionesUnicas();
+    public ResponseEntity<?> obtenerEstadoGrafo(
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) throws IOException {
+        GrafoService servicio = resolverGrafo(grafo);
+        List<ConexionGrafo> todasLasConexiones = servicio.obtenerTodasLasConexiones();
+        List<String> ubicaciones = servicio.obtenerUbicacionesUnicas();
         
         return ResponseEntity.ok(Map.of(
             "totalConexiones", todasLasConexiones.size(),
@@ -57,46 +121,209 @@ public class RandallController {
     
     @Operation(summary = "Calcular ruta más rápida", description = "Calcula la ruta más rápida entre dos ubicaciones usando el algoritmo de Dijkstra")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Ruta calculada exitosamente",
+        @ApiResponse(responseCode = "200", description = "Ruta calculada exitosamente (JSON, CBOR o Smile según Accept)",
             content = @Content(schema = @Schema(implementation = Map.class))),
-        @ApiResponse(responseCode = "404", description = "No se encontró ruta entre las ubicaciones")
+        @ApiResponse(responseCode = "404", description = "No existe el grafo indicado"),
+        @ApiResponse(responseCode = "409", description = "Grafo con nombre consultado en un seguidor de replicación")
     })
     @RequestMapping(value = "/grafo/tiempo/{origen}/{destino}", method = RequestMethod.GET)
     public ResponseEntity<?> obtenerTiempoDirecto(
             @Parameter(description = "Ubicación de origen", example = "CP1") @PathVariable String origen,
-            @Parameter(description = "Ubicación de destino", example = "R20") @PathVariable String destino) {
-        ResultadoRuta resultado = grafoService.encontrarRutaMasRapida(origen, destino);
+            @Parameter(description = "Ubicación de destino", example = "R20") @PathVariable String destino,
+            @Parameter(description = "Incluir estadísticas de la búsqueda en la respuesta")
+            @RequestParam(value = "explain", defaultValue = "false") boolean explain,
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) throws IOException {
+        GrafoService servicio = resolverGrafo(grafo);
         
-        Map<String, Object> respuesta = new HashMap<>();
-        respuesta.put("origen", origen);
-        respuesta.put("destino", destino);
+        // Las estadísticas solo se recolectan si se piden o si el registro de consultas lentas está activo
+        EstadisticasBusqueda estadisticas = null;
+        ResultadoRuta resultado;
+        long inicio = System.nanoTime();
+        if (explain || registroConsultasLentas.isHabilitado()) {
+            estadisticas = new EstadisticasBusqueda();
+            resultado = servicio.encontrarRutaMasRapida(origen, destino, estadisticas);
+            estadisticas.setTiempoMs((System.nanoTime() - inicio) / 1_000_000.0);
+            registroConsultasLentas.registrar(origen, destino, estadisticas);
+        } else {
+            resultado = servicio.encontrarRutaMasRapida(origen, destino);
+        }
+        registrarConsulta(grafo, inicio);
+        
+        return ResponseEntity.ok(new RespuestaRuta(origen, destino, resultado, explain ? estadisticas : null));
+    }
+    
+    @Operation(summary = "Calcular rutas en lote", description = "Calcula la ruta más rápida para cada par origen-destino. Las ubicaciones se entregan una sola vez en el diccionario 'ubicaciones' y los resultados las referencian por índice")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rutas calculadas exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Lote vacío, demasiado grande o con consultas incompletas"),
+        @ApiResponse(responseCode = "404", description = "No existe el grafo indicado"),
+        @ApiResponse(responseCode = "409", description = "Grafo con nombre consultado en un seguidor de replicación")
+    })
+    @RequestMapping(value = "/grafo/tiempos", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> obtenerTiemposEnLote(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Pares origen-destino a calcular")
+            @RequestBody List<ConsultaRuta> consultas,
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) throws IOException {
+        if (consultas.isEmpty() || consultas.size() > MAX_CONSULTAS_LOTE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "mensaje", "El lote debe tener entre 1 y " + MAX_CONSULTAS_LOTE + " consultas"));
+        }
+        for (int i = 0; i < consultas.size(); i++) {
+            ConsultaRuta consulta = consultas.get(i);
+            if (consulta == null || consulta.getOrigen() == null || consulta.getOrigen().isBlank()
+                    || consulta.getDestino() == null || consulta.getDestino().isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "mensaje", "La consulta " + i + " debe indicar origen y destino"));
+            }
+        }
         
-        if (resultado != null) {
-            respuesta.put("ruta", resultado.getRuta());
-            respuesta.put("tiempoTotal", resultado.getTiempoTotal());
+        GrafoService servicio = resolverGrafo(grafo);
+        long inicio = System.nanoTime();
+        List<ResultadoRuta> resultados = new ArrayList<>(consultas.size());
+        for (ConsultaRuta consulta : consultas) {
+            resultados.add(servicio.encontrarRutaMasRapida(consulta.getOrigen(), consulta.getDestino()));
+        }
+        registrarConsulta(grafo, inicio);
+        
+        return ResponseEntity.ok(new RespuestaLote(consultas, resultados));
+    }
+    
+    @Operation(summary = "Actualizar tiempos de conexiones", description = "Aplica un lote de cambios de tiempo (loc_start, loc_end, time); las conexiones inexistentes se agregan. Los árboles de caminos mínimos en caché se reparan de forma incremental y la respuesta compara ese trabajo con el de recalcularlos por completo")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Cambios aplicados exitosamente",
+            content = @Content(schema = @Schema(implementation = EstadisticasReparacion.class))),
+        @ApiResponse(responseCode = "400", description = "Lote vacío, demasiado grande o con cambios inválidos"),
+        @ApiResponse(responseCode = "404", description = "No existe el grafo indicado"),
+        @ApiResponse(responseCode = "409", description = "La instancia es un seguidor de replicación")
+    })
+    @RequestMapping(value = "/grafo/conexiones/tiempos", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> actualizarTiempos(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Conexiones con su tiempo nuevo")
+            @RequestBody List<ConexionGrafo> cambios,
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) throws IOException {
+        // Los seguidores solo reciben el grafo por replicación desde el primario
+        if (replicacionService.isSeguidor()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "mensaje", "Esta instancia es un seguidor de replicación; envíe los cambios al primario"));
+        }
+        if (cambios.isEmpty() || cambios.size() > MAX_CAMBIOS_LOTE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "mensaje", "El lote debe tener entre 1 y " + MAX_CAMBIOS_LOTE + " cambios"));
+        }
+        for (int i = 0; i < cambios.size(); i++) {
+            ConexionGrafo cambio = cambios.get(i);
+            if (cambio == null || cambio.getLocStart() == null || cambio.getLocStart().isBlank()
+                    || cambio.getLocEnd() == null || cambio.getLocEnd().isBlank()
+                    || cambio.getTime() == null || cambio.getTime() < 0) {
+                return ResponseEntity.badRequest().body(Map.of(
+                    "mensaje", "El cambio " + i + " debe indicar locStart, locEnd y un time no negativo"));
+            }
+        }
+        
+        EstadisticasReparacion estadisticas;
+        if (grafo == null) {
+            estadisticas = grafoService.actualizarTiempos(cambios);
         } else {
-            respuesta.put("ruta", null);
-            respuesta.put("tiempoTotal", null);
-            respuesta.put("mensaje", "No existe ruta entre las ubicaciones especificadas");
+            estadisticas = registroGrafos.actualizarTiempos(grafo, cambios);
+            if (estadisticas == null) {
+                throw new GrafoNoEncontradoException(grafo);
+            }
         }
+        return ResponseEntity.ok(estadisticas);
+    }
+    
+    @Operation(summary = "Obtener consultas lentas", description = "Retorna las consultas de ruta recientes que superaron el umbral de lentitud, con sus estadísticas de búsqueda")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Consultas lentas obtenidas exitosamente",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @RequestMapping(value = "/grafo/consultas-lentas", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerConsultasLentas() {
+        List<ConsultaLenta> consultas = registroConsultasLentas.obtenerConsultasLentas();
         
-        return ResponseEntity.ok(respuesta);
+        return ResponseEntity.ok(Map.of(
+            "habilitado", registroConsultasLentas.isHabilitado(),
+            "umbralMs", registroConsultasLentas.getUmbralMs(),
+            "capacidad", registroConsultasLentas.getCapacidad(),
+            "totalRegistradas", registroConsultasLentas.getTotalRegistradas(),
+            "consultas", consultas
+        ));
+    }
+    
+    @Operation(summary = "Calcular rutas alternativas", description = "Calcula las k rutas más rápidas sin ciclos entre dos ubicaciones usando el algoritmo de Yen")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rutas calculadas exitosamente",
+            content = @Content(schema = @Schema(implementation = RespuestaRutasAlternativas.class))),
+        @ApiResponse(responseCode = "400", description = "Cantidad de rutas inválida"),
+        @ApiResponse(responseCode = "404", description = "No existe el grafo indicado"),
+        @ApiResponse(responseCode = "409", description = "Grafo con nombre consultado en un seguidor de replicación")
+    })
+    @RequestMapping(value = "/grafo/rutas/{origen}/{destino}", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerRutasAlternativas(
+            @Parameter(description = "Ubicación de origen", example = "CP1") @PathVariable String origen,
+            @Parameter(description = "Ubicación de destino", example = "R20") @PathVariable String destino,
+            @Parameter(description = "Cantidad máxima de rutas (1 a " + MAX_RUTAS_ALTERNATIVAS + ")", example = "3")
+            @RequestParam(value = "k", defaultValue = "3") int k,
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) throws IOException {
+        if (k < 1 || k > MAX_RUTAS_ALTERNATIVAS) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "origen", origen,
+                "destino", destino,
+                "mensaje", "El parámetro k debe estar entre 1 y " + MAX_RUTAS_ALTERNATIVAS));
+        }
+        
+        GrafoService servicio = resolverGrafo(grafo);
+        long inicio = System.nanoTime();
+        List<ResultadoRuta> resultados = servicio.encontrarRutasAlternativas(origen, destino, k);
+        registrarConsulta(grafo, inicio);
+        
+        return ResponseEntity.ok(new RespuestaRutasAlternativas(origen, destino, resultados));
+    }
+    
+    @Operation(summary = "Listar grafos con nombre", description = "Retorna los grafos con nombre del registro, su uso de memoria y sus métricas de carga y consulta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Grafos obtenidos exitosamente",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @RequestMapping(value = "/grafos", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerGrafos() {
+        return ResponseEntity.ok(Map.of(
+            "presupuestoBytes", registroGrafos.getPresupuestoBytes(),
+            "bytesEnMemoria", registroGrafos.obtenerBytesEnMemoria(),
+            "grafos", registroGrafos.obtenerMetricas()
+        ));
     }
     
-    @Operation(summary = "Cargar archivo CSV", description = "Carga un archivo CSV y reemplaza el grafo en memoria")
+    @Operation(summary = "Cargar archivo CSV", description = "Carga un archivo CSV y reemplaza el grafo en memoria (el principal o el grafo con el nombre indicado)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Archivo procesado exitosamente",
             content = @Content(schema = @Schema(implementation = Map.class))),
         @ApiResponse(responseCode = "400", description = "Archivo inválido o vacío"),
+        @ApiResponse(responseCode = "409", description = "La instancia es un seguidor de replicación"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @RequestMapping(value = "/bulk-upload", method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> bulkUpload(
             @Parameter(description = "Archivo CSV con formato: loc_start;loc_end;time") 
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Nombre del grafo (por defecto, el grafo principal)")
+            @RequestParam(value = "grafo", required = false) String grafo) {
         Map<String, Object> respuesta = new HashMap<>();
         
         try {
+            // Los seguidores solo reciben el grafo por replicación desde el primario
+            if (replicacionService.isSeguidor()) {
+                respuesta.put("success", false);
+                respuesta.put("mensaje", grafo == null
+                    ? "Esta instancia es un seguidor de replicación; cargue el archivo en el primario"
+                    : "Esta instancia es un seguidor de replicación y los grafos con nombre no se replican; cárguelo en el primario");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(respuesta);
+            }
+            
             // Validar que el archivo no esté vacío
             if (file.isEmpty()) {
                 respuesta.put("success", false);
@@ -112,19 +339,36 @@ public class RandallController {
                 return ResponseEntity.badRequest().body(respuesta);
             }
             
+            // Validar el nombre del grafo, que se usa como nombre de archivo
+            if (grafo != null && !RegistroGrafos.esNombreValido(grafo)) {
+                respuesta.put("success", false);
+                respuesta.put("mensaje", "El nombre del grafo solo puede contener letras, números, '-' y '_' (máximo 64)");
+                return ResponseEntity.badRequest().body(respuesta);
+            }
+            
             // Procesar el archivo y reemplazar el grafo
             long startTime = System.currentTimeMillis();
-            boolean procesado = grafoService.cargarGrafoDesdeArchivo(file);
+            GrafoService servicio = grafoService;
+            boolean procesado;
+            if (grafo == null) {
+                procesado = grafoService.cargarGrafoDesdeArchivo(file);
+            } else {
+                servicio = registroGrafos.cargar(grafo, file);
+                procesado = servicio != null;
+            }
             long endTime = System.currentTimeMillis();
             long tiempoProcesamiento = endTime - startTime;
             
             if (procesado) {
                 // Obtener estadísticas del nuevo grafo
-                List<ConexionGrafo> todasLasConexiones = grafoService.obtenerTodasLasConexiones();
-                List<String> ubicaciones = grafoService.obtenerUbicacionesUnicas();
+                List<ConexionGrafo> todasLasConexiones = servicio.obtenerTodasLasConexiones();
+                List<String> ubicaciones = servicio.obtenerUbicacionesUnicas();
                 
                 respuesta.put("success", true);
                 respuesta.put("mensaje", "Archivo procesado exitosamente");
+                if (grafo != null) {
+                    respuesta.put("grafo", grafo);
+                }
                 respuesta.put("nombreArchivo", nombreArchivo);
                 respuesta.put("tamañoArchivo", file.getSize());
                 respuesta.put("tiempoProcesamiento", tiempoProcesamiento + "ms");
@@ -153,6 +397,18 @@ public class RandallController {
             return ResponseEntity.internalServerError().body(respuesta);
         }
     }
-
+    
+    // Se lanza cuando una consulta indica un grafo con nombre que no está registrado
+    static class GrafoNoEncontradoException extends RuntimeException {
+        GrafoNoEncontradoException(String nombre) {
+            super("No existe el grafo '" + nombre + "'");
+        }
+    }
+    
+    static class GrafoNoReplicadoException extends RuntimeException {
+        GrafoNoReplicadoException() {
+            super("Esta instancia es un seguidor de replicación y los grafos con nombre no se replican; consulte el primario");
+        }
+    }
 }
 
@@ -0,0 +1,87 @@
+package cl.randall.controllers;
+
+import cl.randall.services.ReplicacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.HashMap;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@Tag(name = "Replicación", description = "API para replicar el grafo compilado entre instancias")
+public class ReplicacionController {
+
+    private final ReplicacionService replicacionService;
+    
+    @Autowired
+    public ReplicacionController(ReplicacionService replicacionService) {
+        this.replicacionService = replicacionService;
+    }
+    
+    @Operation(summary = "Obtener versión del grafo", description = "Retorna la versión del grafo compilado de esta instancia y cómo descargarlo por bloques")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Versión obtenida exitosamente",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @RequestMapping(value = "/replicacion/version", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerVersion() {
+        ReplicacionService.Instantanea instantanea = replicacionService.obtenerInstantanea();
+        
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("instancia", replicacionService.getInstancia());
+        respuesta.put("version", instantanea.version());
+        respuesta.put("publicadoEn", instantanea.publicadoEn());
+        respuesta.put("tamano", instantanea.contenido().length);
+        respuesta.put("tamanoBloque", instantanea.tamanoBloque());
+        respuesta.put("totalBloques", instantanea.totalBloques());
+        respuesta.put("checksum", instantanea.checksum());
+        
+        return ResponseEntity.ok(respuesta);
+    }
+    
+    @Operation(summary = "Descargar bloque del grafo compilado", description = "Retorna un bloque del grafo compilado; el encabezado X-Checksum-CRC32 trae su checksum")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Bloque obtenido exitosamente"),
+        @ApiResponse(responseCode = "404", description = "El bloque no existe"),
+        @ApiResponse(responseCode = "410", description = "La versión solicitada ya fue reemplazada")
+    })
+    @RequestMapping(value = "/replicacion/instantanea/{version}/bloques/{indice}", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerBloque(
+            @Parameter(description = "Versión del grafo", example = "1") @PathVariable long version,
+            @Parameter(description = "Índice del bloque", example = "0") @PathVariable int indice) {
+        ReplicacionService.Instantanea instantanea = replicacionService.obtenerInstantanea();
+        
+        if (instantanea.version() != version) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        if (indice < 0 || indice >= instantanea.totalBloques()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        byte[] bloque = instantanea.bloque(indice);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(ReplicacionService.ENCABEZADO_CHECKSUM, String.valueOf(ReplicacionService.checksumDe(bloque)))
+            .body(bloque);
+    }
+    
+    @Operation(summary = "Obtener estado de la replicación", description = "Retorna el modo de replicación, las versiones y el retraso respecto al primario")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado obtenido exitosamente",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @RequestMapping(value = "/replicacion/estado", method = RequestMethod.GET)
+    public ResponseEntity<?> obtenerEstado() {
+        return ResponseEntity.ok(replicacionService.obtenerEstado());
+    }
+}
@@ -0,0 +1,25 @@
+package cl.randall.models;
+
+import java.time.Instant;
+
+/**
+ * Clase para representar una consulta lenta registrada junto a sus estadísticas
+ */
+public class ConsultaLenta {
+    private final String origen;
+    private final String destino;
+    private final Instant instante;
+    private final EstadisticasBusqueda estadisticas;
+    
+    public ConsultaLenta(String origen, String destino, Instant instante, EstadisticasBusqueda estadisticas) {
+        this.origen = origen;
+        this.destino = destino;
+        this.instante = instante;
+        this.estadisticas = estadisticas;
+    }
+    
+    public String getOrigen() { return origen; }
+    public String getDestino() { return destino; }
+    public Instant getInstante() { return instante; }
+    public EstadisticasBusqueda getEstadisticas() { return estadisticas; }
+}
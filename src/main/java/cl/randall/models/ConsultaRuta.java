@@ -0,0 +1,14 @@
+package cl.randall.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsultaRuta {
+    
+    private String origen;
+    private String destino;
+}
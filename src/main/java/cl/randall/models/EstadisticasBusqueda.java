@@ -0,0 +1,18 @@
+package cl.randall.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estadísticas de una búsqueda de ruta, usadas por el modo explain y el registro de consultas lentas
+ */
+@Data
+@NoArgsConstructor
+public class EstadisticasBusqueda {
+    
+    private String algoritmo;
+    private int nodosAsentados;
+    private int aristasRelajadas;
+    private int picoCola;
+    private double tiempoMs;
+}
@@ -0,0 +1,30 @@
+package cl.randall.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de aplicar un lote de cambios de tiempo: los cambios aplicados y el trabajo de
+ * reparación de los árboles en caché, comparado con el de recalcularlos por completo
+ */
+@Data
+@NoArgsConstructor
+public class EstadisticasReparacion {
+
+    private int cambiosAplicados;
+    private int conexionesNuevas;
+    private long version;
+    private int arbolesReparados;
+    private int arbolesDescartados;
+    private int nodosInvalidados;
+    private long nodosAsentados;
+    private long aristasRelajadas;
+    private long nodosRecalculoCompleto;
+    private long aristasRecalculoCompleto;
+    private double tiempoMs;
+
+    // Fracción del trabajo de un recálculo completo que tomó la reparación (aristas relajadas)
+    public double getTrabajoRelativo() {
+        return aristasRecalculoCompleto == 0 ? 0 : (double) aristasRelajadas / aristasRecalculoCompleto;
+    }
+}
@@ -0,0 +1,23 @@
+package cl.randall.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clase para representar el grafo publicado junto a su versión y momento de publicación
+ */
+public class InstantaneaGrafo {
+    private final long version;
+    private final long publicadoEn;
+    private final Map<String, List<ConexionGrafo>> grafoPorOrigen;
+    
+    public InstantaneaGrafo(long version, long publicadoEn, Map<String, List<ConexionGrafo>> grafoPorOrigen) {
+        this.version = version;
+        this.publicadoEn = publicadoEn;
+        this.grafoPorOrigen = grafoPorOrigen;
+    }
+    
+    public long getVersion() { return version; }
+    public long getPublicadoEn() { return publicadoEn; }
+    public Map<String, List<ConexionGrafo>> getGrafoPorOrigen() { return grafoPorOrigen; }
+}
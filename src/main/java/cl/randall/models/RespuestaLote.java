@@ -0,0 +1,100 @@
+package cl.randall.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta de POST /grafo/tiempos. Cada ubicación se escribe una sola vez en el diccionario
+ * "ubicaciones" y los resultados la referencian por su índice, en lugar de repetir el nombre
+ */
+@JsonSerialize(using = RespuestaLote.Serializador.class)
+public class RespuestaLote {
+    private final List<String> ubicaciones = new ArrayList<>();
+    private final int[][] consultas;
+    private final int[][] rutas;
+    private final int[] tiemposTotales;
+    
+    public RespuestaLote(List<ConsultaRuta> consultas, List<ResultadoRuta> resultados) {
+        Map<String, Integer> indices = new HashMap<>();
+        this.consultas = new int[consultas.size()][];
+        this.rutas = new int[consultas.size()][];
+        this.tiemposTotales = new int[consultas.size()];
+        
+        for (int i = 0; i < consultas.size(); i++) {
+            ConsultaRuta consulta = consultas.get(i);
+            this.consultas[i] = new int[] {
+                indice(indices, consulta.getOrigen()),
+                indice(indices, consulta.getDestino())
+            };
+            
+            ResultadoRuta resultado = resultados.get(i);
+            if (resultado != null) {
+                List<String> ruta = resultado.getRuta();
+                rutas[i] = new int[ruta.size()];
+                for (int j = 0; j < ruta.size(); j++) {
+                    rutas[i][j] = indice(indices, ruta.get(j));
+                }
+                tiemposTotales[i] = resultado.getTiempoTotal();
+            }
+        }
+    }
+    
+    // Obtiene el índice de la ubicación en el diccionario, agregándola si es nueva
+    private int indice(Map<String, Integer> indices, String ubicacion) {
+        Integer indice = indices.get(ubicacion);
+        if (indice == null) {
+            indice = ubicaciones.size();
+            indices.put(ubicacion, indice);
+            ubicaciones.add(ubicacion);
+        }
+        return indice;
+    }
+    
+    public List<String> getUbicaciones() { return ubicaciones; }
+    
+    public static class Serializador extends StdSerializer<RespuestaLote> {
+        
+        public Serializador() {
+            super(RespuestaLote.class);
+        }
+        
+        @Override
+        public void serialize(RespuestaLote respuesta, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            generador.writeStartObject();
+            
+            generador.writeArrayFieldStart("ubicaciones");
+            for (String ubicacion : respuesta.ubicaciones) {
+                generador.writeString(ubicacion);
+            }
+            generador.writeEndArray();
+            
+            generador.writeArrayFieldStart("resultados");
+            for (int i = 0; i < respuesta.consultas.length; i++) {
+                generador.writeStartObject();
+                generador.writeNumberField("origen", respuesta.consultas[i][0]);
+                generador.writeNumberField("destino", respuesta.consultas[i][1]);
+                int[] ruta = respuesta.rutas[i];
+                if (ruta != null) {
+                    generador.writeFieldName("ruta");
+                    generador.writeArray(ruta, 0, ruta.length);
+                    generador.writeNumberField("tiempoTotal", respuesta.tiemposTotales[i]);
+                } else {
+                    generador.writeNullField("ruta");
+                    generador.writeNullField("tiempoTotal");
+                }
+                generador.writeEndObject();
+            }
+            generador.writeEndArray();
+            
+            generador.writeEndObject();
+        }
+    }
+}
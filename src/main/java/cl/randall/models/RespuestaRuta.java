@@ -0,0 +1,72 @@
+package cl.randall.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Respuesta de GET /grafo/tiempo, escrita campo a campo por su propio serializador
+ * (JSON, CBOR o Smile según el encabezado Accept) sin pasar por un mapa intermedio
+ */
+@JsonSerialize(using = RespuestaRuta.Serializador.class)
+public class RespuestaRuta {
+    private final String origen;
+    private final String destino;
+    private final ResultadoRuta resultado;
+    private final EstadisticasBusqueda estadisticas;
+    
+    public RespuestaRuta(String origen, String destino, ResultadoRuta resultado, EstadisticasBusqueda estadisticas) {
+        this.origen = origen;
+        this.destino = destino;
+        this.resultado = resultado;
+        this.estadisticas = estadisticas;
+    }
+    
+    public String getOrigen() { return origen; }
+    public String getDestino() { return destino; }
+    public ResultadoRuta getResultado() { return resultado; }
+    public EstadisticasBusqueda getEstadisticas() { return estadisticas; }
+    
+    public static class Serializador extends StdSerializer<RespuestaRuta> {
+        
+        public Serializador() {
+            super(RespuestaRuta.class);
+        }
+        
+        @Override
+        public void serialize(RespuestaRuta respuesta, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            generador.writeStartObject();
+            generador.writeStringField("origen", respuesta.origen);
+            generador.writeStringField("destino", respuesta.destino);
+            
+            ResultadoRuta resultado = respuesta.resultado;
+            if (resultado != null) {
+                generador.writeArrayFieldStart("ruta");
+                for (String ubicacion : resultado.getRuta()) {
+                    generador.writeString(ubicacion);
+                }
+                generador.writeEndArray();
+                generador.writeNumberField("tiempoTotal", resultado.getTiempoTotal());
+            } else {
+                generador.writeNullField("ruta");
+                generador.writeNullField("tiempoTotal");
+                generador.writeStringField("mensaje", "No existe ruta entre las ubicaciones especificadas");
+            }
+            
+            EstadisticasBusqueda estadisticas = respuesta.estadisticas;
+            if (estadisticas != null) {
+                generador.writeObjectFieldStart("estadisticas");
+                generador.writeStringField("algoritmo", estadisticas.getAlgoritmo());
+                generador.writeNumberField("nodosAsentados", estadisticas.getNodosAsentados());
+                generador.writeNumberField("aristasRelajadas", estadisticas.getAristasRelajadas());
+                generador.writeNumberField("picoCola", estadisticas.getPicoCola());
+                generador.writeNumberField("tiempoMs", estadisticas.getTiempoMs());
+                generador.writeEndObject();
+            }
+            generador.writeEndObject();
+        }
+    }
+}
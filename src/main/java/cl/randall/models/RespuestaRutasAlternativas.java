@@ -0,0 +1,63 @@
+package cl.randall.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Respuesta de GET /grafo/rutas, escrita campo a campo por su propio serializador
+ * (JSON, CBOR o Smile según el encabezado Accept) sin mapas intermedios por ruta
+ */
+@JsonSerialize(using = RespuestaRutasAlternativas.Serializador.class)
+public class RespuestaRutasAlternativas {
+    private final String origen;
+    private final String destino;
+    private final List<ResultadoRuta> rutas;
+
+    public RespuestaRutasAlternativas(String origen, String destino, List<ResultadoRuta> rutas) {
+        this.origen = origen;
+        this.destino = destino;
+        this.rutas = rutas;
+    }
+
+    public String getOrigen() { return origen; }
+    public String getDestino() { return destino; }
+    public List<ResultadoRuta> getRutas() { return rutas; }
+
+    public static class Serializador extends StdSerializer<RespuestaRutasAlternativas> {
+
+        public Serializador() {
+            super(RespuestaRutasAlternativas.class);
+        }
+
+        @Override
+        public void serialize(RespuestaRutasAlternativas respuesta, JsonGenerator generador, SerializerProvider proveedor) throws IOException {
+            generador.writeStartObject();
+            generador.writeStringField("origen", respuesta.origen);
+            generador.writeStringField("destino", respuesta.destino);
+
+            generador.writeArrayFieldStart("rutas");
+            for (ResultadoRuta resultado : respuesta.rutas) {
+                generador.writeStartObject();
+                generador.writeArrayFieldStart("ruta");
+                for (String ubicacion : resultado.getRuta()) {
+                    generador.writeString(ubicacion);
+                }
+                generador.writeEndArray();
+                generador.writeNumberField("tiempoTotal", resultado.getTiempoTotal());
+                generador.writeEndObject();
+            }
+            generador.writeEndArray();
+            generador.writeNumberField("totalRutas", respuesta.rutas.size());
+
+            if (respuesta.rutas.isEmpty()) {
+                generador.writeStringField("mensaje", "No existe ruta entre las ubicaciones especificadas");
+            }
+            generador.writeEndObject();
+        }
+    }
+}
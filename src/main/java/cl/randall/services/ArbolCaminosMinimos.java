@@ -0,0 +1,253 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+import cl.randall.models.EstadisticasBusqueda;
+import cl.randall.models.EstadisticasReparacion;
+import cl.randall.models.ResultadoRuta;
+
+import java.util.*;
+
+/**
+ * Árbol de caminos mínimos desde un origen, con su tabla de distancias a todos los nodos alcanzables.
+ *
+ * Se construye con un Dijkstra completo, sin detenerse en un destino. Cuando cambian tiempos de conexiones se repara de forma
+ * incremental: los subárboles que cuelgan de una conexión del árbol que se hizo más lenta se
+ * invalidan y se recalculan desde su frontera, y las conexiones más rápidas se propagan desde su
+ * destino. Solo se visitan los nodos cuya distancia puede haber cambiado.
+ *
+ * No es seguro para uso concurrente: quien lo comparte debe sincronizar sobre la instancia.
+ */
+class ArbolCaminosMinimos {
+
+    // Memoria por nodo alcanzable (entradas de distancias, predecesores e hijos), medida con
+    // JDK 21 (compressed oops) sobre grafos de 200 y 5000 nodos: entre 196 y 207 bytes
+    static final long BYTES_POR_NODO = 208;
+
+    private final String origen;
+
+    // Grafo que refleja el árbol; se compara por identidad con el grafo publicado
+    private Map<String, List<ConexionGrafo>> grafo;
+
+    private final Map<String, Integer> distancias = new HashMap<>();
+    private final Map<String, String> predecesores = new HashMap<>();
+    private final Map<String, Set<String>> hijos = new HashMap<>();
+
+    // Conexiones que salen de nodos alcanzables: las que relajaría un Dijkstra completo
+    private long aristasAlcanzables;
+
+    // Nodos alcanzables, legible sin sincronizar para estimar la memoria del caché
+    private volatile int nodosAlcanzables;
+
+    private ArbolCaminosMinimos(String origen, Map<String, List<ConexionGrafo>> grafo) {
+        this.origen = origen;
+        this.grafo = grafo;
+    }
+
+    // Calcula el árbol completo desde el origen, registrando las estadísticas si se entrega dónde hacerlo
+    static ArbolCaminosMinimos construir(Map<String, List<ConexionGrafo>> grafo, String origen,
+                                         EstadisticasBusqueda estadisticas) {
+        ArbolCaminosMinimos arbol = new ArbolCaminosMinimos(origen, grafo);
+        arbol.distancias.put(origen, 0);
+        arbol.aristasAlcanzables = arbol.grado(origen);
+
+        PriorityQueue<Etiqueta> cola = new PriorityQueue<>(Comparator.comparingInt(Etiqueta::distancia));
+        cola.offer(new Etiqueta(origen, 0));
+        Trabajo trabajo = arbol.propagar(cola);
+        arbol.nodosAlcanzables = arbol.distancias.size();
+
+        if (estadisticas != null) {
+            estadisticas.setAlgoritmo("arbol-completo");
+            estadisticas.setNodosAsentados(trabajo.nodosAsentados);
+            estadisticas.setAristasRelajadas(trabajo.aristasRelajadas);
+            estadisticas.setPicoCola(trabajo.picoCola);
+        }
+        return arbol;
+    }
+
+    long bytesEstimados() {
+        return nodosAlcanzables * BYTES_POR_NODO;
+    }
+
+    boolean reflejaGrafo(Map<String, List<ConexionGrafo>> grafoPorOrigen) {
+        return grafo == grafoPorOrigen;
+    }
+
+    // Ruta más rápida desde el origen hasta el destino, o null si no es alcanzable
+    ResultadoRuta ruta(String destino) {
+        Integer distancia = distancias.get(destino);
+        if (distancia == null) {
+            return null;
+        }
+
+        List<String> ruta = new ArrayList<>();
+        String nodoActual = destino;
+        while (nodoActual != null) {
+            ruta.add(0, nodoActual);
+            nodoActual = predecesores.get(nodoActual);
+        }
+        return new ResultadoRuta(ruta, distancia);
+    }
+
+    // Repara el árbol para el grafo nuevo, que solo difiere del anterior en las conexiones cambiadas
+    void reparar(Map<String, List<ConexionGrafo>> nuevoGrafo, Map<String, List<ConexionGrafo>> grafoPorDestino,
+                 List<CambioPeso> cambios, EstadisticasReparacion estadisticas) {
+        grafo = nuevoGrafo;
+        int aristasRelajadas = 0;
+
+        // Las conexiones nuevas que salen de nodos alcanzables también las recorrería un recálculo completo
+        for (CambioPeso cambio : cambios) {
+            if (cambio.esNueva() && distancias.containsKey(cambio.origen())) {
+                aristasAlcanzables++;
+            }
+        }
+
+        // Conexiones del árbol más lentas: todo el subárbol que cuelga de ellas queda sin distancia válida
+        Set<String> invalidados = new HashSet<>();
+        for (CambioPeso cambio : cambios) {
+            if (cambio.nuevo() > cambio.anterior() && cambio.origen().equals(predecesores.get(cambio.destino()))) {
+                recolectarSubarbol(cambio.destino(), invalidados);
+            }
+        }
+        for (String nodo : invalidados) {
+            distancias.remove(nodo);
+            hijos.remove(nodo);
+            String predecesor = predecesores.remove(nodo);
+            Set<String> hermanos = predecesor != null ? hijos.get(predecesor) : null;
+            if (hermanos != null) {
+                hermanos.remove(nodo);
+            }
+            aristasAlcanzables -= grado(nodo);
+        }
+
+        PriorityQueue<Etiqueta> cola = new PriorityQueue<>(Comparator.comparingInt(Etiqueta::distancia));
+
+        // Cada nodo invalidado parte de su mejor conexión desde la parte del árbol que sigue válida
+        for (String nodo : invalidados) {
+            String mejorPredecesor = null;
+            int mejorDistancia = Integer.MAX_VALUE;
+            for (ConexionGrafo entrante : grafoPorDestino.getOrDefault(nodo, Collections.emptyList())) {
+                aristasRelajadas++;
+                Integer distanciaOrigen = distancias.get(entrante.getLocStart());
+                if (distanciaOrigen != null && distanciaOrigen + entrante.getTime() < mejorDistancia) {
+                    mejorDistancia = distanciaOrigen + entrante.getTime();
+                    mejorPredecesor = entrante.getLocStart();
+                }
+            }
+            if (mejorPredecesor != null) {
+                asignar(nodo, mejorDistancia, mejorPredecesor);
+                cola.offer(new Etiqueta(nodo, mejorDistancia));
+            }
+        }
+
+        // Conexiones más rápidas (o nuevas): se propagan desde su destino si lo acercan al origen
+        for (CambioPeso cambio : cambios) {
+            if (cambio.nuevo() >= cambio.anterior()) {
+                continue;
+            }
+            Integer distanciaOrigen = distancias.get(cambio.origen());
+            if (distanciaOrigen == null) {
+                continue;
+            }
+            aristasRelajadas++;
+            int nuevaDistancia = distanciaOrigen + cambio.nuevo();
+            Integer distanciaActual = distancias.get(cambio.destino());
+            if (distanciaActual == null || nuevaDistancia < distanciaActual) {
+                asignar(cambio.destino(), nuevaDistancia, cambio.origen());
+                cola.offer(new Etiqueta(cambio.destino(), nuevaDistancia));
+            }
+        }
+
+        Trabajo trabajo = propagar(cola);
+        nodosAlcanzables = distancias.size();
+
+        estadisticas.setArbolesReparados(estadisticas.getArbolesReparados() + 1);
+        estadisticas.setNodosInvalidados(estadisticas.getNodosInvalidados() + invalidados.size());
+        estadisticas.setNodosAsentados(estadisticas.getNodosAsentados() + trabajo.nodosAsentados);
+        estadisticas.setAristasRelajadas(estadisticas.getAristasRelajadas() + aristasRelajadas + trabajo.aristasRelajadas);
+        estadisticas.setNodosRecalculoCompleto(estadisticas.getNodosRecalculoCompleto() + distancias.size());
+        estadisticas.setAristasRecalculoCompleto(estadisticas.getAristasRecalculoCompleto() + aristasAlcanzables);
+    }
+
+    // Dijkstra a partir de las etiquetas de la cola, mejorando las distancias que correspondan
+    private Trabajo propagar(PriorityQueue<Etiqueta> cola) {
+        Trabajo trabajo = new Trabajo();
+        trabajo.picoCola = cola.size();
+
+        while (!cola.isEmpty()) {
+            Etiqueta actual = cola.poll();
+
+            // Etiqueta obsoleta: el nodo ya se alcanzó con una distancia menor
+            if (actual.distancia() > distancias.get(actual.nodo())) {
+                continue;
+            }
+            trabajo.nodosAsentados++;
+
+            List<ConexionGrafo> conexiones = grafo.get(actual.nodo());
+            if (conexiones == null) {
+                continue;
+            }
+            trabajo.aristasRelajadas += conexiones.size();
+            for (ConexionGrafo conexion : conexiones) {
+                int nuevaDistancia = actual.distancia() + conexion.getTime();
+                Integer distanciaActual = distancias.get(conexion.getLocEnd());
+                if (distanciaActual == null || nuevaDistancia < distanciaActual) {
+                    asignar(conexion.getLocEnd(), nuevaDistancia, actual.nodo());
+                    cola.offer(new Etiqueta(conexion.getLocEnd(), nuevaDistancia));
+                }
+            }
+            trabajo.picoCola = Math.max(trabajo.picoCola, cola.size());
+        }
+        return trabajo;
+    }
+
+    // Fija la distancia y el predecesor de un nodo, manteniendo los hijos de cada nodo del árbol
+    private void asignar(String nodo, int distancia, String predecesor) {
+        String anterior = predecesores.put(nodo, predecesor);
+        if (anterior != null) {
+            Set<String> hermanos = hijos.get(anterior);
+            if (hermanos != null) {
+                hermanos.remove(nodo);
+            }
+        }
+        hijos.computeIfAbsent(predecesor, k -> new HashSet<>()).add(nodo);
+
+        if (distancias.put(nodo, distancia) == null) {
+            aristasAlcanzables += grado(nodo);
+        }
+    }
+
+    private void recolectarSubarbol(String raiz, Set<String> subarbol) {
+        Deque<String> pendientes = new ArrayDeque<>();
+        pendientes.push(raiz);
+        while (!pendientes.isEmpty()) {
+            String nodo = pendientes.pop();
+            if (subarbol.add(nodo)) {
+                pendientes.addAll(hijos.getOrDefault(nodo, Collections.emptySet()));
+            }
+        }
+    }
+
+    private int grado(String nodo) {
+        List<ConexionGrafo> conexiones = grafo.get(nodo);
+        return conexiones == null ? 0 : conexiones.size();
+    }
+
+    /**
+     * Cambio de tiempo de una conexión; anterior es Integer.MAX_VALUE si la conexión no existía
+     */
+    record CambioPeso(String origen, String destino, int anterior, int nuevo) {
+
+        boolean esNueva() {
+            return anterior == Integer.MAX_VALUE;
+        }
+    }
+
+    private record Etiqueta(String nodo, int distancia) {
+    }
+
+    private static class Trabajo {
+        private int nodosAsentados;
+        private int aristasRelajadas;
+        private int picoCola;
+    }
+}
@@ -0,0 +1,220 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+import cl.randall.models.ResultadoRuta;
+
+import java.util.*;
+
+/**
+ * Calcula las k rutas más rápidas sin ciclos entre dos ubicaciones (algoritmo de Yen).
+ *
+ * El árbol de caminos mínimos hacia el destino se calcula una sola vez sobre el grafo
+ * invertido: entrega la primera ruta sin búsqueda adicional y sirve como heurística
+ * exacta para las búsquedas de desvío (A*), que además se acotan por el costo de los
+ * candidatos ya encontrados.
+ */
+class BuscadorRutasAlternativas {
+
+    private final Map<String, List<ConexionGrafo>> grafoPorOrigen;
+    private final String destino;
+
+    // Árbol de caminos mínimos hacia el destino
+    private final Map<String, Integer> distanciaAlDestino = new HashMap<>();
+    private final Map<String, String> siguienteHaciaDestino = new HashMap<>();
+
+    BuscadorRutasAlternativas(Map<String, List<ConexionGrafo>> grafoPorOrigen, String destino) {
+        this.grafoPorOrigen = grafoPorOrigen;
+        this.destino = destino;
+        construirArbolHaciaDestino();
+    }
+
+    // Busca hasta k rutas ordenadas por tiempo total
+    List<ResultadoRuta> buscar(String origen, int k) {
+        List<ResultadoRuta> rutas = new ArrayList<>();
+        Integer tiempoMinimo = distanciaAlDestino.get(origen);
+        if (tiempoMinimo == null || k <= 0) {
+            return rutas;
+        }
+        rutas.add(new ResultadoRuta(rutaPorArbol(origen), tiempoMinimo));
+
+        PriorityQueue<ResultadoRuta> candidatos = new PriorityQueue<>(
+            Comparator.comparingInt(ResultadoRuta::getTiempoTotal)
+        );
+        Set<List<String>> rutasConocidas = new HashSet<>();
+        rutasConocidas.add(rutas.get(0).getRuta());
+
+        while (rutas.size() < k) {
+            List<String> anterior = rutas.get(rutas.size() - 1).getRuta();
+            Set<String> nodosRaiz = new HashSet<>();
+            long costoRaiz = 0;
+
+            for (int i = 0; i < anterior.size() - 1; i++) {
+                String nodoDesvio = anterior.get(i);
+                List<String> raiz = anterior.subList(0, i + 1);
+
+                // Bloquear las aristas ya usadas por rutas aceptadas con la misma raíz
+                Set<String> siguientesBloqueados = new HashSet<>();
+                for (ResultadoRuta aceptada : rutas) {
+                    List<String> ruta = aceptada.getRuta();
+                    if (ruta.size() > i + 1 && ruta.subList(0, i + 1).equals(raiz)) {
+                        siguientesBloqueados.add(ruta.get(i + 1));
+                    }
+                }
+
+                // Si ningún desvío desde aquí puede mejorar los candidatos necesarios, se omite
+                long limite = limiteCandidatos(candidatos, k - rutas.size());
+                if (costoRaiz + distanciaAlDestino.get(nodoDesvio) < limite) {
+                    ResultadoRuta desvio = buscarDesvio(nodoDesvio, nodosRaiz, siguientesBloqueados, limite - costoRaiz);
+                    if (desvio != null) {
+                        List<String> ruta = new ArrayList<>(raiz.subList(0, i));
+                        ruta.addAll(desvio.getRuta());
+                        if (rutasConocidas.add(ruta)) {
+                            candidatos.offer(new ResultadoRuta(ruta, (int) (costoRaiz + desvio.getTiempoTotal())));
+                        }
+                    }
+                }
+
+                nodosRaiz.add(nodoDesvio);
+                costoRaiz += tiempoArista(nodoDesvio, anterior.get(i + 1));
+            }
+
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            rutas.add(candidatos.poll());
+        }
+
+        return rutas;
+    }
+
+    // Dijkstra desde el destino sobre el grafo invertido
+    private void construirArbolHaciaDestino() {
+        Map<String, List<ConexionGrafo>> grafoPorDestino = new HashMap<>();
+        for (List<ConexionGrafo> conexiones : grafoPorOrigen.values()) {
+            for (ConexionGrafo conexion : conexiones) {
+                grafoPorDestino.computeIfAbsent(conexion.getLocEnd(), n -> new ArrayList<>()).add(conexion);
+            }
+        }
+
+        PriorityQueue<Etiqueta> cola = new PriorityQueue<>(Comparator.comparingLong(Etiqueta::prioridad));
+        distanciaAlDestino.put(destino, 0);
+        cola.offer(new Etiqueta(destino, 0, 0));
+
+        while (!cola.isEmpty()) {
+            Etiqueta actual = cola.poll();
+            if (actual.costo() > distanciaAlDestino.get(actual.nodo())) {
+                continue;
+            }
+
+            List<ConexionGrafo> entrantes = grafoPorDestino.get(actual.nodo());
+            if (entrantes != null) {
+                for (ConexionGrafo conexion : entrantes) {
+                    String previo = conexion.getLocStart();
+                    long nuevaDistancia = actual.costo() + conexion.getTime();
+                    Integer distanciaPrevia = distanciaAlDestino.get(previo);
+
+                    if (distanciaPrevia == null || nuevaDistancia < distanciaPrevia) {
+                        distanciaAlDestino.put(previo, (int) nuevaDistancia);
+                        siguienteHaciaDestino.put(previo, actual.nodo());
+                        cola.offer(new Etiqueta(previo, nuevaDistancia, nuevaDistancia));
+                    }
+                }
+            }
+        }
+    }
+
+    // Reconstruye la ruta mínima siguiendo el árbol hacia el destino
+    private List<String> rutaPorArbol(String origen) {
+        List<String> ruta = new ArrayList<>();
+        String nodoActual = origen;
+        while (nodoActual != null) {
+            ruta.add(nodoActual);
+            nodoActual = siguienteHaciaDestino.get(nodoActual);
+        }
+        return ruta;
+    }
+
+    // A* desde el nodo de desvío evitando la raíz y las aristas bloqueadas, acotado por presupuesto
+    private ResultadoRuta buscarDesvio(String nodoDesvio, Set<String> nodosRaiz,
+                                       Set<String> siguientesBloqueados, long presupuesto) {
+        Map<String, Long> costos = new HashMap<>();
+        Map<String, String> predecesores = new HashMap<>();
+        PriorityQueue<Etiqueta> cola = new PriorityQueue<>(Comparator.comparingLong(Etiqueta::prioridad));
+
+        costos.put(nodoDesvio, 0L);
+        cola.offer(new Etiqueta(nodoDesvio, 0, distanciaAlDestino.get(nodoDesvio)));
+
+        while (!cola.isEmpty()) {
+            Etiqueta actual = cola.poll();
+            String nodoActual = actual.nodo();
+            if (actual.costo() > costos.get(nodoActual)) {
+                continue;
+            }
+
+            if (nodoActual.equals(destino)) {
+                List<String> ruta = new ArrayList<>();
+                String nodo = destino;
+                while (nodo != null) {
+                    ruta.add(0, nodo);
+                    nodo = predecesores.get(nodo);
+                }
+                return new ResultadoRuta(ruta, (int) actual.costo());
+            }
+
+            List<ConexionGrafo> conexiones = grafoPorOrigen.get(nodoActual);
+            if (conexiones == null) {
+                continue;
+            }
+            for (ConexionGrafo conexion : conexiones) {
+                String vecino = conexion.getLocEnd();
+                if (nodosRaiz.contains(vecino)
+                        || (nodoActual.equals(nodoDesvio) && siguientesBloqueados.contains(vecino))) {
+                    continue;
+                }
+
+                // Sin camino al destino desde el vecino no hay nada que explorar
+                Integer restante = distanciaAlDestino.get(vecino);
+                if (restante == null) {
+                    continue;
+                }
+
+                long nuevoCosto = actual.costo() + conexion.getTime();
+                if (nuevoCosto + restante >= presupuesto) {
+                    continue;
+                }
+
+                Long costoPrevio = costos.get(vecino);
+                if (costoPrevio == null || nuevoCosto < costoPrevio) {
+                    costos.put(vecino, nuevoCosto);
+                    predecesores.put(vecino, nodoActual);
+                    cola.offer(new Etiqueta(vecino, nuevoCosto, nuevoCosto + restante));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Costo del candidato que quedaría último entre los necesarios; infinito si aún faltan candidatos
+    private static long limiteCandidatos(PriorityQueue<ResultadoRuta> candidatos, int necesarios) {
+        if (candidatos.size() < necesarios) {
+            return Long.MAX_VALUE;
+        }
+        int[] tiempos = candidatos.stream().mapToInt(ResultadoRuta::getTiempoTotal).sorted().toArray();
+        return tiempos[necesarios - 1];
+    }
+
+    // Tiempo mínimo entre dos nodos consecutivos de una ruta
+    private int tiempoArista(String desde, String hasta) {
+        int minimo = Integer.MAX_VALUE;
+        for (ConexionGrafo conexion : grafoPorOrigen.get(desde)) {
+            if (conexion.getLocEnd().equals(hasta)) {
+                minimo = Math.min(minimo, conexion.getTime());
+            }
+        }
+        return minimo;
+    }
+
+    private record Etiqueta(String nodo, long costo, long prioridad) {
+    }
+}
@@ -0,0 +1,95 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Formato binario compilado del grafo, usado para replicar grafos sin volver a procesar el CSV.
+ *
+ * Las ubicaciones se escriben una sola vez en una tabla de nombres y las conexiones se
+ * guardan como índices enteros dentro de esa tabla:
+ * <pre>
+ * int magia, int formato
+ * int totalNodos, totalNodos x UTF nombre
+ * int totalOrigenes, por origen: int origen, int totalConexiones, totalConexiones x (int destino, int tiempo)
+ * </pre>
+ */
+public final class GrafoBinario {
+
+    private static final int MAGIA = 0x52475246; // "RGRF"
+    private static final int FORMATO = 1;
+
+    private GrafoBinario() {
+    }
+
+    // Serializa el grafo agrupado por origen al formato compilado
+    public static byte[] serializar(Map<String, List<ConexionGrafo>> grafoPorOrigen) {
+        Map<String, Integer> indices = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ConexionGrafo>> entrada : grafoPorOrigen.entrySet()) {
+            indices.putIfAbsent(entrada.getKey(), indices.size());
+            for (ConexionGrafo conexion : entrada.getValue()) {
+                indices.putIfAbsent(conexion.getLocEnd(), indices.size());
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(bytes))) {
+            salida.writeInt(MAGIA);
+            salida.writeInt(FORMATO);
+
+            salida.writeInt(indices.size());
+            for (String nombre : indices.keySet()) {
+                salida.writeUTF(nombre);
+            }
+
+            salida.writeInt(grafoPorOrigen.size());
+            for (Map.Entry<String, List<ConexionGrafo>> entrada : grafoPorOrigen.entrySet()) {
+                salida.writeInt(indices.get(entrada.getKey()));
+                salida.writeInt(entrada.getValue().size());
+                for (ConexionGrafo conexion : entrada.getValue()) {
+                    salida.writeInt(indices.get(conexion.getLocEnd()));
+                    salida.writeInt(conexion.getTime());
+                }
+            }
+        } catch (IOException e) {
+            // Escribir en memoria no produce errores de E/S
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Reconstruye el grafo agrupado por origen desde el formato compilado
+    public static Map<String, List<ConexionGrafo>> deserializar(byte[] contenido) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(contenido))) {
+            if (entrada.readInt() != MAGIA) {
+                throw new IOException("El contenido no corresponde a un grafo compilado");
+            }
+            int formato = entrada.readInt();
+            if (formato != FORMATO) {
+                throw new IOException("Formato de grafo compilado no soportado: " + formato);
+            }
+
+            String[] nombres = new String[entrada.readInt()];
+            for (int i = 0; i < nombres.length; i++) {
+                nombres[i] = entrada.readUTF();
+            }
+
+            int totalOrigenes = entrada.readInt();
+            Map<String, List<ConexionGrafo>> grafoPorOrigen = new HashMap<>(totalOrigenes * 2);
+            for (int i = 0; i < totalOrigenes; i++) {
+                String origen = nombres[entrada.readInt()];
+                int totalConexiones = entrada.readInt();
+                List<ConexionGrafo> conexiones = new ArrayList<>(totalConexiones);
+                for (int j = 0; j < totalConexiones; j++) {
+                    conexiones.add(new ConexionGrafo(origen, nombres[entrada.readInt()], entrada.readInt()));
+                }
+                grafoPorOrigen.put(origen, conexiones);
+            }
+            return grafoPorOrigen;
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Grafo compilado truncado o corrupto", e);
+        }
+    }
+}
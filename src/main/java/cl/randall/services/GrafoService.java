@@ -1,9 +1,13 @@
 package cl.randall.services;
 
 import cl.randall.models.ConexionGrafo;
+import cl.randall.models.EstadisticasBusqueda;
+import cl.randall.models.EstadisticasReparacion;
+import cl.randall.models.InstantaneaGrafo;
 import cl.randall.models.ResultadoRuta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
@@ -20,22 +24,54 @@ public class GrafoService {
     
     private static final Logger logger = LoggerFactory.getLogger(GrafoService.class);
     
-    private final Map<String, List<ConexionGrafo>> grafoPorOrigen;
+    // El grafo publicado no se modifica: cada carga construye un mapa nuevo y lo reemplaza completo,
+    // de modo que las consultas en curso nunca ven una carga a medias
+    private volatile Map<String, List<ConexionGrafo>> grafoPorOrigen;
     
+    // Versión del grafo publicado y momento de publicación (protegidos por this)
+    private long versionGrafo;
+    private long publicadoEn;
+    
+    // Árboles de caminos mínimos por origen, del menos al más usado recientemente, acotados en
+    // cantidad y en memoria estimada. Cada árbol se usa solo si refleja el grafo publicado;
+    // el acceso a un árbol se sincroniza sobre él
+    private static final int CAPACIDAD_ARBOLES = 64;
+    private final Map<String, ArbolCaminosMinimos> arbolesPorOrigen = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true));
+    private volatile long memoriaMaximaArbolesBytes = 64L * 1024 * 1024;
+    
+    // Orígenes ya consultados, del menos al más usado recientemente. Calcular el árbol completo cuesta
+    // más que un Dijkstra que se detiene en el destino, así que solo se calcula y se guarda cuando
+    // el origen se repite
+    private static final int CAPACIDAD_ORIGENES_CONSULTADOS = 4 * CAPACIDAD_ARBOLES;
+    private final Map<String, Boolean> origenesConsultados = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> masAntiguo) {
+                return size() > CAPACIDAD_ORIGENES_CONSULTADOS;
+            }
+        });
+    
+    // Conexiones agrupadas por destino, para reparar árboles; se construye con la primera
+    // actualización de tiempos sobre cada grafo publicado (protegido por this)
+    private Map<String, List<ConexionGrafo>> grafoPorDestino;
+    private Map<String, List<ConexionGrafo>> grafoPorDestinoDe;
+    
+    // Constructor usado por Spring: el grafo inicial se carga en la fase de arranque (FaseArranque)
     public GrafoService() {
-        this("grafos_light.csv");
+        this.grafoPorOrigen = new HashMap<>();
     }
     
     public GrafoService(String nombreArchivo) {
-        this.grafoPorOrigen = new HashMap<>();
+        this();
         cargarGrafoDesdeCSV(nombreArchivo);
     }
     
     // Carga los datos del grafo desde el archivo CSV especificado
-    private void cargarGrafoDesdeCSV(String nombreArchivo) {
+    public void cargarGrafoDesdeCSV(String nombreArchivo) {
         try {
             ClassPathResource resource = new ClassPathResource(nombreArchivo);
-            procesarCSV(resource.getInputStream(), nombreArchivo);
+            publicarGrafo(procesarCSV(resource.getInputStream(), nombreArchivo));
             logger.info("Grafo cargado exitosamente desde {}. Total de conexiones: {}", 
                 nombreArchivo, obtenerTodasLasConexiones().size());
         } catch (IOException e) {
@@ -44,8 +80,12 @@ public class GrafoService {
         }
     }
     
-    // Procesa un archivo CSV desde un InputStream
-    private void procesarCSV(java.io.InputStream inputStream, String nombreArchivo) throws IOException {
+    // Procesa un archivo CSV desde un InputStream y retorna el grafo agrupado por origen
+    private Map<String, List<ConexionGrafo>> procesarCSV(java.io.InputStream inputStream, String nombreArchivo) throws IOException {
+        Map<String, List<ConexionGrafo>> nuevoGrafo = new HashMap<>();
+        // Cada ubicación se guarda una sola vez, como al leer el grafo compilado (GrafoBinario),
+        // para que el grafo ocupe lo mismo en memoria sin importar cómo se cargó
+        Map<String, String> ubicaciones = new HashMap<>();
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
             
@@ -65,13 +105,13 @@ public class GrafoService {
                 if (campos.length == 3) {
                     try {
                         ConexionGrafo conexion = new ConexionGrafo(
-                            campos[0].trim(),
-                            campos[1].trim(),
+                            ubicaciones.computeIfAbsent(campos[0].trim(), nombre -> nombre),
+                            ubicaciones.computeIfAbsent(campos[1].trim(), nombre -> nombre),
                             Integer.parseInt(campos[2].trim())
                         );
                         
                         // Agrupar por origen para facilitar consultas
-                        grafoPorOrigen.computeIfAbsent(conexion.getLocStart(), k -> new ArrayList<>())
+                        nuevoGrafo.computeIfAbsent(conexion.getLocStart(), k -> new ArrayList<>())
                                      .add(conexion);
                         
                         lineasProcesadas++;
@@ -91,6 +131,89 @@ public class GrafoService {
                     nombreArchivo, lineasProcesadas, errores);
             }
         }
+        return nuevoGrafo;
+    }
+    
+    // Publica un grafo completo reemplazando el actual de forma atómica
+    private synchronized void publicarGrafo(Map<String, List<ConexionGrafo>> nuevoGrafo) {
+        grafoPorOrigen = nuevoGrafo;
+        versionGrafo++;
+        publicadoEn = System.currentTimeMillis();
+        arbolesPorOrigen.clear();
+    }
+    
+    // Memoria máxima del caché de árboles; el grafo principal la toma de la configuración
+    @Value("${randall.arboles.memoria-maxima-mb:64}")
+    public void setMemoriaMaximaArbolesMb(long memoriaMaximaMb) {
+        this.memoriaMaximaArbolesBytes = memoriaMaximaMb * 1024 * 1024;
+        ajustarCacheArboles(null);
+    }
+    
+    // Memoria estimada de los árboles en caché
+    public long obtenerBytesArboles() {
+        synchronized (arbolesPorOrigen) {
+            long total = 0;
+            for (ArbolCaminosMinimos arbol : arbolesPorOrigen.values()) {
+                total += arbol.bytesEstimados();
+            }
+            return total;
+        }
+    }
+    
+    // Memoria que puede llegar a ocupar el caché de árboles con el grafo actual: el límite
+    // configurado, o todos los árboles posibles si el grafo es pequeño
+    public long obtenerBytesMaximosArboles() {
+        Map<String, List<ConexionGrafo>> grafoPorOrigen = this.grafoPorOrigen;
+        Set<String> nodos = new HashSet<>(grafoPorOrigen.keySet());
+        for (List<ConexionGrafo> conexiones : grafoPorOrigen.values()) {
+            for (ConexionGrafo conexion : conexiones) {
+                nodos.add(conexion.getLocEnd());
+            }
+        }
+        long arbolesPosibles = Math.min(CAPACIDAD_ARBOLES, grafoPorOrigen.size());
+        return Math.min(memoriaMaximaArbolesBytes, arbolesPosibles * nodos.size() * ArbolCaminosMinimos.BYTES_POR_NODO);
+    }
+    
+    // Guarda un árbol en caché y descarta los menos usados hasta respetar la cantidad y la memoria máximas
+    private void guardarArbol(String origen, ArbolCaminosMinimos arbol) {
+        if (arbol.bytesEstimados() > memoriaMaximaArbolesBytes) {
+            return;
+        }
+        synchronized (arbolesPorOrigen) {
+            arbolesPorOrigen.put(origen, arbol);
+            ajustarCacheArboles(arbol);
+        }
+    }
+    
+    private void ajustarCacheArboles(ArbolCaminosMinimos protegido) {
+        synchronized (arbolesPorOrigen) {
+            long total = obtenerBytesArboles();
+            Iterator<ArbolCaminosMinimos> menosUsados = arbolesPorOrigen.values().iterator();
+            while ((arbolesPorOrigen.size() > CAPACIDAD_ARBOLES || total > memoriaMaximaArbolesBytes)
+                    && menosUsados.hasNext()) {
+                ArbolCaminosMinimos arbol = menosUsados.next();
+                if (arbol != protegido) {
+                    total -= arbol.bytesEstimados();
+                    menosUsados.remove();
+                }
+            }
+        }
+    }
+    
+    // Descarta los árboles de caminos mínimos en caché y los orígenes consultados (por ejemplo, los del calentamiento)
+    public void vaciarArbolesEnCache() {
+        arbolesPorOrigen.clear();
+        origenesConsultados.clear();
+    }
+    
+    // Reemplaza el grafo actual por uno ya construido (por ejemplo, recibido por replicación)
+    public void reemplazarGrafo(Map<String, List<ConexionGrafo>> nuevoGrafo) {
+        publicarGrafo(nuevoGrafo);
+    }
+    
+    // Obtiene el grafo publicado junto a su versión, leídos de forma consistente
+    public synchronized InstantaneaGrafo obtenerInstantanea() {
+        return new InstantaneaGrafo(versionGrafo, publicadoEn, grafoPorOrigen);
     }
     
     // Obtiene todas las conexiones del grafo
@@ -109,32 +232,71 @@ public class GrafoService {
     
     // Encuentra la ruta más rápida entre dos ubicaciones usando el algoritmo de Dijkstra
     public ResultadoRuta encontrarRutaMasRapida(String origen, String destino) {
+        return encontrarRutaMasRapida(origen, destino, null);
+    }
+    
+    // Igual que la anterior, pero registra las estadísticas de la búsqueda si se entrega dónde hacerlo
+    public ResultadoRuta encontrarRutaMasRapida(String origen, String destino, EstadisticasBusqueda estadisticas) {
+        Map<String, List<ConexionGrafo>> grafoPorOrigen = this.grafoPorOrigen;
+        
         // Verificar que ambos nodos existen en el grafo
-        if (!grafoPorOrigen.containsKey(origen) || !existeNodo(destino)) {
+        if (!grafoPorOrigen.containsKey(origen) || !existeNodo(grafoPorOrigen, destino)) {
+            if (estadisticas != null) {
+                estadisticas.setAlgoritmo("validacion");
+            }
             return null;
         }
         
         // Si es la misma ubicación
         if (origen.equals(destino)) {
+            if (estadisticas != null) {
+                estadisticas.setAlgoritmo("trivial");
+            }
             return new ResultadoRuta(Arrays.asList(origen), 0);
         }
         
-        // Estructuras para el algoritmo de Dijkstra
+        // Un árbol en caché responde cualquier destino desde su origen sin volver a ejecutar Dijkstra
+        ArbolCaminosMinimos arbol = arbolesPorOrigen.get(origen);
+        if (arbol != null) {
+            synchronized (arbol) {
+                if (arbol.reflejaGrafo(grafoPorOrigen)) {
+                    if (estadisticas != null) {
+                        estadisticas.setAlgoritmo("arbol-cacheado");
+                    }
+                    return arbol.ruta(destino);
+                }
+            }
+        }
+        
+        // Primera consulta desde este origen: Dijkstra hasta llegar al destino
+        if (origenesConsultados.put(origen, Boolean.TRUE) == null) {
+            return buscarHastaDestino(grafoPorOrigen, origen, destino, estadisticas);
+        }
+        
+        // El origen se repite: calcular su árbol completo y guardarlo para las siguientes consultas
+        arbol = ArbolCaminosMinimos.construir(grafoPorOrigen, origen, estadisticas);
+        ResultadoRuta resultado = arbol.ruta(destino);
+        guardarArbol(origen, arbol);
+        return resultado;
+    }
+    
+    // Dijkstra desde el origen que se detiene al asentar el destino
+    private static ResultadoRuta buscarHastaDestino(Map<String, List<ConexionGrafo>> grafoPorOrigen, String origen,
+                                                    String destino, EstadisticasBusqueda estadisticas) {
+        // Estructuras para el algoritmo de Dijkstra; un nodo sin distancia aún no se alcanza
         Map<String, Integer> distancias = new HashMap<>();
         Map<String, String> predecesores = new HashMap<>();
         PriorityQueue<Map.Entry<String, Integer>> cola = new PriorityQueue<>(
             (a, b) -> Integer.compare(a.getValue(), b.getValue())
         );
-        
-        // Inicializar distancias
-        for (String nodo : obtenerTodosLosNodos()) {
-            distancias.put(nodo, Integer.MAX_VALUE);
-        }
         distancias.put(origen, 0);
-        
-        // Agregar origen a la cola
         cola.offer(new AbstractMap.SimpleEntry<>(origen, 0));
         
+        // Contadores para las estadísticas (variables locales, sin costo si no se solicitan)
+        int nodosAsentados = 0;
+        int aristasRelajadas = 0;
+        int picoCola = 1;
+        
         while (!cola.isEmpty()) {
             Map.Entry<String, Integer> actual = cola.poll();
             String nodoActual = actual.getKey();
@@ -144,6 +306,7 @@ public class GrafoService {
             if (distanciaActual > distancias.get(nodoActual)) {
                 continue;
             }
+            nodosAsentados++;
             
             // Si llegamos al destino, hemos encontrado la ruta más corta
             if (nodoActual.equals(destino)) {
@@ -153,21 +316,32 @@ public class GrafoService {
             // Explorar vecinos
             List<ConexionGrafo> conexiones = grafoPorOrigen.get(nodoActual);
             if (conexiones != null) {
+                aristasRelajadas += conexiones.size();
                 for (ConexionGrafo conexion : conexiones) {
                     String vecino = conexion.getLocEnd();
                     int nuevaDistancia = distanciaActual + conexion.getTime();
+                    Integer distanciaVecino = distancias.get(vecino);
                     
-                    if (nuevaDistancia < distancias.get(vecino)) {
+                    if (distanciaVecino == null || nuevaDistancia < distanciaVecino) {
                         distancias.put(vecino, nuevaDistancia);
                         predecesores.put(vecino, nodoActual);
                         cola.offer(new AbstractMap.SimpleEntry<>(vecino, nuevaDistancia));
                     }
                 }
+                picoCola = Math.max(picoCola, cola.size());
             }
         }
         
+        if (estadisticas != null) {
+            estadisticas.setAlgoritmo("dijkstra");
+            estadisticas.setNodosAsentados(nodosAsentados);
+            estadisticas.setAristasRelajadas(aristasRelajadas);
+            estadisticas.setPicoCola(picoCola);
+        }
+        
         // Si no se encontró ruta al destino
-        if (distancias.get(destino) == Integer.MAX_VALUE) {
+        Integer distanciaDestino = distancias.get(destino);
+        if (distanciaDestino == null) {
             return null;
         }
         
@@ -179,11 +353,143 @@ public class GrafoService {
             nodoActual = predecesores.get(nodoActual);
         }
         
-        return new ResultadoRuta(ruta, distancias.get(destino));
+        return new ResultadoRuta(ruta, distanciaDestino);
+    }
+    
+    // Encuentra hasta k rutas alternativas sin ciclos, ordenadas por tiempo total (algoritmo de Yen)
+    public List<ResultadoRuta> encontrarRutasAlternativas(String origen, String destino, int k) {
+        Map<String, List<ConexionGrafo>> grafoPorOrigen = this.grafoPorOrigen;
+        
+        // Verificar que ambos nodos existen en el grafo
+        if (k <= 0 || !grafoPorOrigen.containsKey(origen) || !existeNodo(grafoPorOrigen, destino)) {
+            return Collections.emptyList();
+        }
+        
+        // Si es la misma ubicación solo existe la ruta trivial
+        if (origen.equals(destino)) {
+            return List.of(new ResultadoRuta(Arrays.asList(origen), 0));
+        }
+        
+        return new BuscadorRutasAlternativas(grafoPorOrigen, destino).buscar(origen, k);
+    }
+    
+    // Aplica un lote de cambios de tiempo (conexiones nuevas incluidas) y repara los árboles en caché
+    public synchronized EstadisticasReparacion actualizarTiempos(List<ConexionGrafo> cambios) {
+        long inicio = System.nanoTime();
+        Map<String, List<ConexionGrafo>> anterior = grafoPorOrigen;
+        
+        // Si un lote trae varios cambios para la misma conexión, prevalece el último
+        Map<String, Map<String, Integer>> tiemposPorOrigen = new LinkedHashMap<>();
+        for (ConexionGrafo cambio : cambios) {
+            tiemposPorOrigen.computeIfAbsent(cambio.getLocStart(), k -> new LinkedHashMap<>())
+                .put(cambio.getLocEnd(), cambio.getTime());
+        }
+        
+        // Copiar solo las listas de los orígenes afectados; el resto se comparte con el grafo anterior
+        Map<String, List<ConexionGrafo>> nuevoGrafo = new HashMap<>(anterior);
+        List<ArbolCaminosMinimos.CambioPeso> aplicados = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Integer>> porOrigen : tiemposPorOrigen.entrySet()) {
+            String origen = porOrigen.getKey();
+            List<ConexionGrafo> conexiones = new ArrayList<>(anterior.getOrDefault(origen, Collections.emptyList()));
+            
+            for (Map.Entry<String, Integer> cambio : porOrigen.getValue().entrySet()) {
+                String destino = cambio.getKey();
+                int tiempo = cambio.getValue();
+                
+                // Todas las conexiones entre el mismo par de ubicaciones toman el tiempo nuevo
+                int tiempoAnterior = Integer.MAX_VALUE;
+                boolean distinto = false;
+                for (int i = 0; i < conexiones.size(); i++) {
+                    ConexionGrafo conexion = conexiones.get(i);
+                    if (conexion.getLocEnd().equals(destino)) {
+                        tiempoAnterior = Math.min(tiempoAnterior, conexion.getTime());
+                        if (conexion.getTime() != tiempo) {
+                            distinto = true;
+                            conexiones.set(i, new ConexionGrafo(origen, destino, tiempo));
+                        }
+                    }
+                }
+                if (tiempoAnterior == Integer.MAX_VALUE) {
+                    conexiones.add(new ConexionGrafo(origen, destino, tiempo));
+                    distinto = true;
+                }
+                if (distinto) {
+                    aplicados.add(new ArbolCaminosMinimos.CambioPeso(origen, destino, tiempoAnterior, tiempo));
+                }
+            }
+            nuevoGrafo.put(origen, conexiones);
+        }
+        
+        EstadisticasReparacion estadisticas = new EstadisticasReparacion();
+        estadisticas.setCambiosAplicados(aplicados.size());
+        estadisticas.setConexionesNuevas((int) aplicados.stream().filter(ArbolCaminosMinimos.CambioPeso::esNueva).count());
+        if (aplicados.isEmpty()) {
+            estadisticas.setVersion(versionGrafo);
+            return estadisticas;
+        }
+        
+        actualizarGrafoPorDestino(anterior, nuevoGrafo, aplicados);
+        grafoPorOrigen = nuevoGrafo;
+        versionGrafo++;
+        publicadoEn = System.currentTimeMillis();
+        estadisticas.setVersion(versionGrafo);
+        
+        // Reparar los árboles del grafo anterior; los de otro grafo (de una consulta concurrente) se descartan
+        List<Map.Entry<String, ArbolCaminosMinimos>> arboles;
+        synchronized (arbolesPorOrigen) {
+            arboles = new ArrayList<>(arbolesPorOrigen.entrySet());
+        }
+        for (Map.Entry<String, ArbolCaminosMinimos> entrada : arboles) {
+            ArbolCaminosMinimos arbol = entrada.getValue();
+            synchronized (arbol) {
+                if (arbol.reflejaGrafo(anterior)) {
+                    arbol.reparar(nuevoGrafo, grafoPorDestino, aplicados, estadisticas);
+                } else if (!arbol.reflejaGrafo(nuevoGrafo)) {
+                    arbolesPorOrigen.remove(entrada.getKey(), arbol);
+                    estadisticas.setArbolesDescartados(estadisticas.getArbolesDescartados() + 1);
+                }
+            }
+        }
+        
+        // La reparación puede haber hecho alcanzables nodos nuevos y agrandado los árboles
+        ajustarCacheArboles(null);
+        
+        estadisticas.setTiempoMs((System.nanoTime() - inicio) / 1_000_000.0);
+        logger.info("Tiempos actualizados (versión {}): {} cambios, {} árboles reparados asentando {} nodos y "
+                + "relajando {} aristas (un recálculo completo relajaría {}) en {}ms",
+            versionGrafo, aplicados.size(), estadisticas.getArbolesReparados(), estadisticas.getNodosAsentados(),
+            estadisticas.getAristasRelajadas(), estadisticas.getAristasRecalculoCompleto(),
+            String.format("%.2f", estadisticas.getTiempoMs()));
+        return estadisticas;
+    }
+    
+    // Mantiene el índice de conexiones por destino al día con el grafo que se va a publicar
+    private void actualizarGrafoPorDestino(Map<String, List<ConexionGrafo>> anterior,
+                                           Map<String, List<ConexionGrafo>> nuevoGrafo,
+                                           List<ArbolCaminosMinimos.CambioPeso> aplicados) {
+        if (grafoPorDestino == null || grafoPorDestinoDe != anterior) {
+            grafoPorDestino = new HashMap<>();
+            for (List<ConexionGrafo> conexiones : nuevoGrafo.values()) {
+                for (ConexionGrafo conexion : conexiones) {
+                    grafoPorDestino.computeIfAbsent(conexion.getLocEnd(), k -> new ArrayList<>()).add(conexion);
+                }
+            }
+        } else {
+            for (ArbolCaminosMinimos.CambioPeso cambio : aplicados) {
+                List<ConexionGrafo> entrantes = grafoPorDestino.computeIfAbsent(cambio.destino(), k -> new ArrayList<>());
+                entrantes.removeIf(conexion -> conexion.getLocStart().equals(cambio.origen()));
+                for (ConexionGrafo conexion : nuevoGrafo.get(cambio.origen())) {
+                    if (conexion.getLocEnd().equals(cambio.destino())) {
+                        entrantes.add(conexion);
+                    }
+                }
+            }
+        }
+        grafoPorDestinoDe = nuevoGrafo;
     }
     
     // Verifica si un nodo existe en el grafo (como origen o destino)
-    private boolean existeNodo(String nodo) {
+    private static boolean existeNodo(Map<String, List<ConexionGrafo>> grafoPorOrigen, String nodo) {
         // Verificar si es un nodo origen
         if (grafoPorOrigen.containsKey(nodo)) {
             return true;
@@ -200,37 +506,25 @@ public class GrafoService {
         return false;
     }
     
-    // Obtiene todos los nodos únicos del grafo (origenes y destinos)
-    private Set<String> obtenerTodosLosNodos() {
-        Set<String> nodos = new HashSet<>();
-        
-        // Agregar todos los nodos origen
-        nodos.addAll(grafoPorOrigen.keySet());
-        
-        // Agregar todos los nodos destino
-        for (List<ConexionGrafo> conexiones : grafoPorOrigen.values()) {
-            for (ConexionGrafo conexion : conexiones) {
-                nodos.add(conexion.getLocEnd());
-            }
-        }
-        
-        return nodos;
-    }
-    
     // Carga un grafo desde un archivo CSV subido y reemplaza el grafo actual
     public boolean cargarGrafoDesdeArchivo(MultipartFile file) throws IOException {
         try {
-            // Limpiar el grafo actual
-            grafoPorOrigen.clear();
-            
             // Procesar el nuevo archivo usando el método común
-            procesarCSV(file.getInputStream(), file.getOriginalFilename());
+            Map<String, List<ConexionGrafo>> nuevoGrafo = procesarCSV(file.getInputStream(), file.getOriginalFilename());
             
-            int totalConexiones = obtenerTodasLasConexiones().size();
+            int totalConexiones = 0;
+            for (List<ConexionGrafo> conexiones : nuevoGrafo.values()) {
+                totalConexiones += conexiones.size();
+            }
             logger.info("Archivo {} procesado exitosamente. Total conexiones: {}", 
                 file.getOriginalFilename(), totalConexiones);
             
-            return totalConexiones > 0; // Retorna true si se procesó al menos una línea válida
+            // Solo se reemplaza el grafo actual si se procesó al menos una línea válida
+            if (totalConexiones == 0) {
+                return false;
+            }
+            publicarGrafo(nuevoGrafo);
+            return true;
             
         } catch (Exception e) {
             logger.error("Error al procesar el archivo CSV", e);
@@ -0,0 +1,109 @@
+package cl.randall.services;
+
+import cl.randall.models.ConsultaLenta;
+import cl.randall.models.EstadisticasBusqueda;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Registro sin bloqueos de las consultas más lentas de la ventana reciente que superaron el umbral.
+// Una consulta nueva ocupa un espacio vacío o vencido, o reemplaza a la más rápida del registro si es más lenta
+@Service
+public class RegistroConsultasLentas {
+    
+    private final boolean habilitado;
+    private final double umbralMs;
+    private final long ventanaMs;
+    private final AtomicReferenceArray<ConsultaLenta> buffer;
+    private final AtomicLong totalRegistradas = new AtomicLong();
+    
+    public RegistroConsultasLentas(
+            @Value("${randall.consultas-lentas.habilitado:true}") boolean habilitado,
+            @Value("${randall.consultas-lentas.umbral-ms:50}") double umbralMs,
+            @Value("${randall.consultas-lentas.capacidad:128}") int capacidad,
+            @Value("${randall.consultas-lentas.ventana-s:300}") long ventanaS) {
+        this.habilitado = habilitado;
+        this.umbralMs = umbralMs;
+        this.ventanaMs = ventanaS * 1000;
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, capacidad));
+    }
+    
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+    
+    public double getUmbralMs() {
+        return umbralMs;
+    }
+    
+    public int getCapacidad() {
+        return buffer.length();
+    }
+    
+    public long getTotalRegistradas() {
+        return totalRegistradas.get();
+    }
+    
+    // Registra la consulta si supera el umbral y está entre las más lentas de la ventana.
+    // El espacio elegido se reemplaza con compareAndSet; si otro hilo lo cambió antes, se vuelve a elegir
+    public void registrar(String origen, String destino, EstadisticasBusqueda estadisticas) {
+        if (!habilitado || estadisticas.getTiempoMs() < umbralMs) {
+            return;
+        }
+        totalRegistradas.incrementAndGet();
+        
+        Instant ahora = Instant.now();
+        ConsultaLenta nueva = new ConsultaLenta(origen, destino, ahora, estadisticas);
+        long limiteVentana = ahora.toEpochMilli() - ventanaMs;
+        
+        for (int intento = 0; intento < buffer.length(); intento++) {
+            int elegido = -1;
+            ConsultaLenta reemplazada = null;
+            for (int i = 0; i < buffer.length(); i++) {
+                ConsultaLenta actual = buffer.get(i);
+                if (actual == null || actual.getInstante().toEpochMilli() < limiteVentana) {
+                    elegido = i;
+                    reemplazada = actual;
+                    break;
+                }
+                if (reemplazada == null || tiempoDe(actual) < tiempoDe(reemplazada)) {
+                    elegido = i;
+                    reemplazada = actual;
+                }
+            }
+            
+            // Todas las consultas del registro son más lentas que la nueva
+            boolean libre = reemplazada == null || reemplazada.getInstante().toEpochMilli() < limiteVentana;
+            if (!libre && tiempoDe(reemplazada) >= estadisticas.getTiempoMs()) {
+                return;
+            }
+            if (buffer.compareAndSet(elegido, reemplazada, nueva)) {
+                return;
+            }
+        }
+    }
+    
+    // Obtiene las consultas de la ventana ordenadas de la más lenta a la más rápida
+    public List<ConsultaLenta> obtenerConsultasLentas() {
+        long limiteVentana = System.currentTimeMillis() - ventanaMs;
+        List<ConsultaLenta> consultas = new ArrayList<>();
+        for (int i = 0; i < buffer.length(); i++) {
+            ConsultaLenta consulta = buffer.get(i);
+            if (consulta != null && consulta.getInstante().toEpochMilli() >= limiteVentana) {
+                consultas.add(consulta);
+            }
+        }
+        consultas.sort(Comparator.comparingDouble(RegistroConsultasLentas::tiempoDe).reversed());
+        return consultas;
+    }
+    
+    private static double tiempoDe(ConsultaLenta consulta) {
+        return consulta.getEstadisticas().getTiempoMs();
+    }
+}
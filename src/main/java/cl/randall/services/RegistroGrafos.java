@@ -0,0 +1,274 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+import cl.randall.models.EstadisticasReparacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Registro de grafos con nombre, adicionales al grafo principal de {@link GrafoService}.
+ *
+ * Cada grafo cargado se guarda también en disco en su forma compilada ({@link GrafoBinario}).
+ * Cuando la memoria estimada de los grafos en memoria supera el presupuesto, se descargan
+ * los menos usados recientemente; se vuelven a cargar desde disco en su próxima consulta.
+ */
+@Service
+public class RegistroGrafos {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroGrafos.class);
+
+    // Los nombres se usan como nombres de archivo
+    private static final Pattern NOMBRE_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    // Estimación de memoria en el heap, calibrada midiendo el heap con JDK 21 (compressed oops) al cargar
+    // grafos_full.csv y un grafo generado de 5000 orígenes, tanto desde CSV como desde el grafo compilado:
+    // por conexión, el ConexionGrafo y su posición en la lista, más el Integer del tiempo cuando no cabe
+    // en el caché de Integer (-128 a 127); por origen, su nombre, la entrada del mapa y la lista. Queda
+    // a menos de 4% de lo medido con grafos de 200 orígenes (con tiempos pequeños o todos en caja) y
+    // sobrestima entre 7% y 20% el de 5000 orígenes
+    private static final long BYTES_POR_CONEXION = 28;
+    private static final long BYTES_POR_TIEMPO_EN_CAJA = 16;
+    private static final long BYTES_POR_ORIGEN = 176;
+
+    private final long presupuestoBytes;
+    private final long memoriaArbolesMb;
+    private final Path directorio;
+
+    // En orden de acceso: el primero es el menos usado recientemente (protegido por this)
+    private final LinkedHashMap<String, EntradaGrafo> grafos = new LinkedHashMap<>(16, 0.75f, true);
+
+    public RegistroGrafos(
+            @Value("${randall.grafos.memoria-maxima-mb:256}") long memoriaMaximaMb,
+            @Value("${randall.grafos.memoria-arboles-mb:8}") long memoriaArbolesMb,
+            @Value("${randall.grafos.directorio:${java.io.tmpdir}/randall-grafos}") String directorio) {
+        this.presupuestoBytes = memoriaMaximaMb * 1024 * 1024;
+        this.memoriaArbolesMb = memoriaArbolesMb;
+        this.directorio = Path.of(directorio);
+    }
+
+    public static boolean esNombreValido(String nombre) {
+        return nombre != null && NOMBRE_VALIDO.matcher(nombre).matches();
+    }
+
+    // Carga un CSV con nombre, reemplazando el grafo anterior con ese nombre
+    public GrafoService cargar(String nombre, MultipartFile file) throws IOException {
+        if (!esNombreValido(nombre)) {
+            throw new IllegalArgumentException("Nombre de grafo inválido: " + nombre);
+        }
+
+        GrafoService servicio = nuevoServicio();
+        if (!servicio.cargarGrafoDesdeArchivo(file)) {
+            return null;
+        }
+
+        Map<String, List<ConexionGrafo>> grafo = servicio.obtenerInstantanea().getGrafoPorOrigen();
+        byte[] compilado = GrafoBinario.serializar(grafo);
+        Files.createDirectories(directorio);
+
+        EntradaGrafo entrada;
+        synchronized (this) {
+            entrada = grafos.computeIfAbsent(nombre, n -> new EntradaGrafo(n, directorio.resolve(n + ".grafo")));
+        }
+        // Bajo el candado de la entrada para no reemplazar el archivo mientras se recarga
+        synchronized (entrada) {
+            Files.write(entrada.archivo, compilado);
+            entrada.servicio = servicio;
+            entrada.bytesEstimados = estimarBytes(servicio);
+            entrada.cargas.incrementAndGet();
+        }
+        logger.info("Grafo '{}' cargado: {} bytes estimados en memoria", nombre, entrada.bytesEstimados);
+
+        liberarMemoria(nombre);
+        return servicio;
+    }
+
+    // Obtiene un grafo por nombre, recargándolo desde disco si fue descargado; null si no existe
+    public GrafoService obtener(String nombre) throws IOException {
+        EntradaGrafo entrada;
+        synchronized (this) {
+            entrada = grafos.get(nombre);
+        }
+        if (entrada == null) {
+            return null;
+        }
+
+        GrafoService servicio = entrada.servicio;
+        if (servicio == null) {
+            synchronized (entrada) {
+                servicio = entrada.servicio;
+                if (servicio == null) {
+                    servicio = recargar(entrada);
+                }
+            }
+            liberarMemoria(nombre);
+        }
+        return servicio;
+    }
+
+    // Aplica cambios de tiempo a un grafo con nombre y guarda su versión compilada; null si no existe
+    public EstadisticasReparacion actualizarTiempos(String nombre, List<ConexionGrafo> cambios) throws IOException {
+        EstadisticasReparacion estadisticas;
+        EntradaGrafo entrada;
+        synchronized (this) {
+            entrada = grafos.get(nombre);
+        }
+        if (entrada == null) {
+            return null;
+        }
+
+        // Bajo el candado de la entrada: una recarga concurrente espera a que el archivo esté al día
+        synchronized (entrada) {
+            GrafoService servicio = entrada.servicio;
+            if (servicio == null) {
+                servicio = recargar(entrada);
+            }
+            estadisticas = servicio.actualizarTiempos(cambios);
+            if (estadisticas.getCambiosAplicados() > 0) {
+                Files.write(entrada.archivo, GrafoBinario.serializar(servicio.obtenerInstantanea().getGrafoPorOrigen()));
+                // Las conexiones nuevas agrandan el grafo
+                entrada.bytesEstimados = estimarBytes(servicio);
+            }
+        }
+        liberarMemoria(nombre);
+        return estadisticas;
+    }
+
+    // Registra la duración de una consulta sobre un grafo con nombre
+    public void registrarConsulta(String nombre, long nanos) {
+        EntradaGrafo entrada;
+        synchronized (this) {
+            entrada = grafos.get(nombre);
+        }
+        if (entrada != null) {
+            entrada.consultas.incrementAndGet();
+            entrada.nanosConsultas.addAndGet(nanos);
+        }
+    }
+
+    private GrafoService recargar(EntradaGrafo entrada) throws IOException {
+        long inicio = System.nanoTime();
+        Map<String, List<ConexionGrafo>> grafo = GrafoBinario.deserializar(Files.readAllBytes(entrada.archivo));
+        GrafoService servicio = nuevoServicio();
+        servicio.reemplazarGrafo(grafo);
+
+        entrada.servicio = servicio;
+        entrada.bytesEstimados = estimarBytes(servicio);
+        entrada.recargas.incrementAndGet();
+        entrada.nanosUltimaRecarga = System.nanoTime() - inicio;
+        logger.info("Grafo '{}' recargado desde {} en {}ms", entrada.nombre, entrada.archivo,
+            entrada.nanosUltimaRecarga / 1_000_000);
+        return servicio;
+    }
+
+    // Descarga los grafos menos usados hasta respetar el presupuesto, sin tocar el indicado
+    private synchronized void liberarMemoria(String protegido) {
+        long total = obtenerBytesEnMemoria();
+
+        Iterator<EntradaGrafo> menosUsados = grafos.values().iterator();
+        while (total > presupuestoBytes && menosUsados.hasNext()) {
+            EntradaGrafo entrada = menosUsados.next();
+            if (entrada.nombre.equals(protegido) || entrada.servicio == null) {
+                continue;
+            }
+            entrada.servicio = null;
+            entrada.descargas.incrementAndGet();
+            total -= entrada.bytesEstimados;
+            logger.info("Grafo '{}' descargado de memoria para respetar el presupuesto", entrada.nombre);
+        }
+
+        if (total > presupuestoBytes) {
+            logger.warn("Los grafos en memoria ({} bytes) superan el presupuesto de {} bytes", total, presupuestoBytes);
+        }
+    }
+
+    private GrafoService nuevoServicio() {
+        GrafoService servicio = new GrafoService();
+        servicio.setMemoriaMaximaArbolesMb(memoriaArbolesMb);
+        return servicio;
+    }
+
+    // Memoria del grafo más lo máximo que puede ocupar su caché de árboles de caminos mínimos
+    private static long estimarBytes(GrafoService servicio) {
+        Map<String, List<ConexionGrafo>> grafo = servicio.obtenerInstantanea().getGrafoPorOrigen();
+        long conexiones = 0;
+        long tiemposEnCaja = 0;
+        for (List<ConexionGrafo> lista : grafo.values()) {
+            conexiones += lista.size();
+            for (ConexionGrafo conexion : lista) {
+                if (conexion.getTime() > 127) {
+                    tiemposEnCaja++;
+                }
+            }
+        }
+        return conexiones * BYTES_POR_CONEXION + tiemposEnCaja * BYTES_POR_TIEMPO_EN_CAJA
+            + grafo.size() * BYTES_POR_ORIGEN + servicio.obtenerBytesMaximosArboles();
+    }
+
+    // Métricas por grafo, del menos al más usado recientemente
+    public synchronized List<Map<String, Object>> obtenerMetricas() {
+        List<Map<String, Object>> metricas = new ArrayList<>();
+        for (EntradaGrafo entrada : grafos.values()) {
+            GrafoService servicio = entrada.servicio;
+            boolean cargado = servicio != null;
+            long consultas = entrada.consultas.get();
+
+            Map<String, Object> metrica = new LinkedHashMap<>();
+            metrica.put("nombre", entrada.nombre);
+            metrica.put("enMemoria", cargado);
+            metrica.put("bytesEstimados", entrada.bytesEstimados);
+            metrica.put("bytesArbolesEnCache", cargado ? servicio.obtenerBytesArboles() : 0L);
+            metrica.put("cargas", entrada.cargas.get());
+            metrica.put("recargas", entrada.recargas.get());
+            metrica.put("descargas", entrada.descargas.get());
+            metrica.put("ultimaRecargaMs", entrada.nanosUltimaRecarga / 1_000_000.0);
+            metrica.put("consultas", consultas);
+            metrica.put("tiempoMedioConsultaMs", consultas == 0 ? 0 : entrada.nanosConsultas.get() / 1_000_000.0 / consultas);
+            metricas.add(metrica);
+        }
+        return metricas;
+    }
+
+    // Memoria estimada de los grafos actualmente en memoria
+    public synchronized long obtenerBytesEnMemoria() {
+        long total = 0;
+        for (EntradaGrafo entrada : grafos.values()) {
+            if (entrada.servicio != null) {
+                total += entrada.bytesEstimados;
+            }
+        }
+        return total;
+    }
+
+    public long getPresupuestoBytes() {
+        return presupuestoBytes;
+    }
+
+    // Estado de un grafo con nombre
+    private static class EntradaGrafo {
+        private final String nombre;
+        private final Path archivo;
+        private volatile GrafoService servicio;
+        private volatile long bytesEstimados;
+        private volatile long nanosUltimaRecarga;
+        private final AtomicLong cargas = new AtomicLong();
+        private final AtomicLong recargas = new AtomicLong();
+        private final AtomicLong descargas = new AtomicLong();
+        private final AtomicLong consultas = new AtomicLong();
+        private final AtomicLong nanosConsultas = new AtomicLong();
+
+        private EntradaGrafo(String nombre, Path archivo) {
+            this.nombre = nombre;
+            this.archivo = archivo;
+        }
+    }
+}
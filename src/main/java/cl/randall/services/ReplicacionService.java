@@ -0,0 +1,252 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+import cl.randall.models.InstantaneaGrafo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Replicación del grafo entre instancias mediante un protocolo de consulta (pull).
+ *
+ * Toda instancia publica su grafo compilado ({@link GrafoBinario}) dividido en bloques con
+ * checksum CRC32. Una instancia en modo seguidor consulta periódicamente la versión del
+ * primario y, cuando cambia, descarga los bloques, verifica cada uno y el total, y reemplaza
+ * su grafo de forma atómica.
+ */
+@Service
+public class ReplicacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicacionService.class);
+
+    public static final String ENCABEZADO_CHECKSUM = "X-Checksum-CRC32";
+
+    private static final int REINTENTOS_POR_BLOQUE = 3;
+
+    private final GrafoService grafoService;
+    private final ObjectMapper objectMapper;
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Value("${randall.replicacion.modo:desactivado}")
+    private String modo;
+
+    @Value("${randall.replicacion.primario-url:}")
+    private String primarioUrl;
+
+    @Value("${randall.replicacion.tamano-bloque:262144}")
+    private int tamanoBloque;
+
+    // Identifica esta ejecución: las versiones de un primario reiniciado vuelven a empezar desde 1
+    private final String instancia = UUID.randomUUID().toString();
+
+    // Última instantánea compilada de este nodo (se recalcula cuando cambia la versión del grafo)
+    private volatile Instantanea instantanea;
+
+    // Estado del seguidor
+    private volatile String instanciaPrimario;
+    private volatile String instanciaAplicada;
+    private volatile long versionAplicada;
+    private volatile long versionPrimario;
+    private volatile long publicadoEnPrimario;
+    private volatile long ultimaAplicacion;
+    private volatile long ultimoRetrasoAplicacionMs;
+    private volatile long replicacionesExitosas;
+    private volatile long replicacionesFallidas;
+    private volatile String ultimoError;
+    private final CountDownLatch primeraReplicacion = new CountDownLatch(1);
+
+    public ReplicacionService(GrafoService grafoService, ObjectMapper objectMapper) {
+        this.grafoService = grafoService;
+        this.objectMapper = objectMapper;
+    }
+
+    public String getInstancia() {
+        return instancia;
+    }
+
+    public boolean isSeguidor() {
+        return "seguidor".equals(modo);
+    }
+
+    // Espera a que el seguidor aplique su primer grafo replicado; false si no ocurre dentro del plazo
+    public boolean esperarPrimeraReplicacion(long plazoMs) throws InterruptedException {
+        return primeraReplicacion.await(plazoMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Obtiene la instantánea compilada del grafo actual, recompilándola solo si cambió la versión
+    public Instantanea obtenerInstantanea() {
+        InstantaneaGrafo actual = grafoService.obtenerInstantanea();
+        Instantanea cacheada = instantanea;
+        if (cacheada != null && cacheada.version() == actual.getVersion()) {
+            return cacheada;
+        }
+        synchronized (this) {
+            if (instantanea == null || instantanea.version() != actual.getVersion()) {
+                byte[] contenido = GrafoBinario.serializar(actual.getGrafoPorOrigen());
+                instantanea = new Instantanea(actual.getVersion(), actual.getPublicadoEn(),
+                        contenido, checksumDe(contenido), Math.max(1, tamanoBloque));
+            }
+            return instantanea;
+        }
+    }
+
+    // Consulta al primario y replica su grafo si hay una versión nueva
+    @Scheduled(fixedDelayString = "${randall.replicacion.intervalo-ms:2000}")
+    public void sincronizar() {
+        if (!isSeguidor() || primarioUrl.isBlank()) {
+            return;
+        }
+        try {
+            JsonNode version = objectMapper.readTree(obtener("/replicacion/version").body());
+            instanciaPrimario = version.get("instancia").asText();
+            versionPrimario = version.get("version").asLong();
+            publicadoEnPrimario = version.get("publicadoEn").asLong();
+            if (alDia()) {
+                return;
+            }
+
+            long inicio = System.currentTimeMillis();
+            byte[] contenido = descargarBloques(versionPrimario, version.get("totalBloques").asInt());
+            if (contenido.length != version.get("tamano").asInt()
+                    || checksumDe(contenido) != version.get("checksum").asLong()) {
+                throw new IOException("El checksum del grafo replicado no coincide");
+            }
+
+            Map<String, List<ConexionGrafo>> grafo = GrafoBinario.deserializar(contenido);
+            grafoService.reemplazarGrafo(grafo);
+
+            long versionReplicada = versionPrimario;
+            instanciaAplicada = instanciaPrimario;
+            versionAplicada = versionReplicada;
+            ultimaAplicacion = System.currentTimeMillis();
+            ultimoRetrasoAplicacionMs = ultimaAplicacion - publicadoEnPrimario;
+            replicacionesExitosas++;
+            ultimoError = null;
+            primeraReplicacion.countDown();
+            logger.info("Grafo replicado desde {}: versión {}, {} bytes, {} orígenes en {}ms (retraso {}ms)",
+                primarioUrl, versionReplicada, contenido.length, grafo.size(),
+                ultimaAplicacion - inicio, ultimoRetrasoAplicacionMs);
+        } catch (Exception e) {
+            replicacionesFallidas++;
+            ultimoError = e.getMessage();
+            logger.warn("Error al replicar el grafo desde {}: {}", primarioUrl, e.getMessage());
+        }
+    }
+
+    // Descarga todos los bloques de una versión verificando el checksum de cada uno
+    private byte[] descargarBloques(long version, int totalBloques) throws IOException, InterruptedException {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream();
+        for (int indice = 0; indice < totalBloques; indice++) {
+            contenido.writeBytes(descargarBloque(version, indice));
+        }
+        return contenido.toByteArray();
+    }
+
+    private byte[] descargarBloque(long version, int indice) throws IOException, InterruptedException {
+        for (int intento = 1; ; intento++) {
+            HttpResponse<byte[]> respuesta = cliente.send(
+                HttpRequest.newBuilder(URI.create(primarioUrl + "/replicacion/instantanea/" + version + "/bloques/" + indice))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+            // La versión cambió en el primario durante la transferencia: se reintentará en la próxima consulta
+            if (respuesta.statusCode() == 410) {
+                throw new IOException("La versión " + version + " ya no está disponible en el primario");
+            }
+
+            byte[] bloque = respuesta.body();
+            long esperado = respuesta.headers().firstValue(ENCABEZADO_CHECKSUM).map(Long::parseLong).orElse(-1L);
+            if (respuesta.statusCode() == 200 && checksumDe(bloque) == esperado) {
+                return bloque;
+            }
+            if (intento >= REINTENTOS_POR_BLOQUE) {
+                throw new IOException("El bloque " + indice + " de la versión " + version
+                    + " falló la verificación tras " + intento + " intentos");
+            }
+        }
+    }
+
+    private HttpResponse<String> obtener(String ruta) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(
+            HttpRequest.newBuilder(URI.create(primarioUrl + ruta)).timeout(Duration.ofSeconds(10)).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IOException("El primario respondió " + respuesta.statusCode() + " a " + ruta);
+        }
+        return respuesta;
+    }
+
+    // Estado de la replicación en este nodo
+    public Map<String, Object> obtenerEstado() {
+        InstantaneaGrafo local = grafoService.obtenerInstantanea();
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("modo", modo);
+        estado.put("versionLocal", local.getVersion());
+        if (isSeguidor()) {
+            boolean alDia = alDia();
+            estado.put("primarioUrl", primarioUrl);
+            estado.put("versionPrimario", versionPrimario);
+            estado.put("versionAplicada", versionAplicada);
+            estado.put("alDia", alDia);
+            // Retraso actual: tiempo desde que el primario publicó una versión que aún no se aplica
+            estado.put("retrasoMs", alDia || publicadoEnPrimario == 0 ? 0 : System.currentTimeMillis() - publicadoEnPrimario);
+            estado.put("ultimoRetrasoAplicacionMs", ultimoRetrasoAplicacionMs);
+            estado.put("ultimaAplicacion", ultimaAplicacion);
+            estado.put("replicacionesExitosas", replicacionesExitosas);
+            estado.put("replicacionesFallidas", replicacionesFallidas);
+            estado.put("ultimoError", ultimoError);
+        }
+        return estado;
+    }
+
+    private boolean alDia() {
+        return instanciaAplicada != null && instanciaAplicada.equals(instanciaPrimario) && versionAplicada == versionPrimario;
+    }
+
+    // Checksum CRC32 de un bloque o de la instantánea completa
+    public static long checksumDe(byte[] contenido) {
+        CRC32 crc = new CRC32();
+        crc.update(contenido, 0, contenido.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Grafo compilado de una versión, dividido en bloques para su transferencia
+     */
+    public record Instantanea(long version, long publicadoEn, byte[] contenido, long checksum, int tamanoBloque) {
+
+        public int totalBloques() {
+            return Math.max(1, (contenido.length + tamanoBloque - 1) / tamanoBloque);
+        }
+
+        public byte[] bloque(int indice) {
+            int desde = indice * tamanoBloque;
+            return Arrays.copyOfRange(contenido, desde, Math.min(contenido.length, desde + tamanoBloque));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package cl.randall.carga;
+
+import cl.randall.RandallApp;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de punta a punta contra el servidor embebido.
+ *
+ * Se ejecuta con {@code gradle loadTest} (queda excluida de {@code gradle test}) y se configura
+ * con propiedades {@code -Pcarga.*}. Las solicitudes se emiten en lazo abierto: cada una tiene
+ * un instante de inicio planificado según la tasa de llegada y la latencia se mide desde ese
+ * instante, de modo que la cola del cliente cuenta como latencia (sin omisión coordinada).
+ */
+@Tag("carga")
+@SpringBootTest(classes = RandallApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PruebaCargaTest {
+
+    // Latencias registradas en microsegundos, hasta 60 segundos con 3 dígitos significativos
+    private static final long LATENCIA_MAXIMA_US = TimeUnit.SECONDS.toMicros(60);
+
+    @LocalServerPort
+    private int puerto;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    @DisplayName("Prueba de carga con tasa de llegada abierta y reporte de percentiles")
+    void ejecutarPruebaDeCarga() throws Exception {
+        String grafo = System.getProperty("carga.grafo", "grafos_full.csv");
+        double tasa = Double.parseDouble(System.getProperty("carga.tasa", "200"));
+        int duracionSegundos = Integer.parseInt(System.getProperty("carga.duracion-s", "30"));
+        int calentamientoSegundos = Integer.parseInt(System.getProperty("carga.calentamiento-s", "5"));
+        int k = Integer.parseInt(System.getProperty("carga.k", "3"));
+        int tamanoLote = Integer.parseInt(System.getProperty("carga.lote.tamano", "20"));
+        String formato = System.getProperty("carga.formato", "application/json");
+        Map<String, Integer> mezcla = leerMezcla(System.getProperty("carga.mezcla", "ruta=80,alternativas=9,lote=10,upload=1"));
+        Path directorioReporte = Path.of(System.getProperty("carga.reporte", "build/reports/carga"));
+        Files.createDirectories(directorioReporte);
+        Random random = new Random(Long.getLong("carga.semilla", 42L));
+
+        // Cargar el grafo elegido a través del propio endpoint de carga
+        byte[] csv = "generado".equals(grafo)
+                ? generarGrafo(random, directorioReporte)
+                : new ClassPathResource(grafo).getInputStream().readAllBytes();
+        HttpResponse<String> carga = cliente.send(solicitudUpload(csv), HttpResponse.BodyHandlers.ofString());
+        assertTrue(carga.statusCode() == 200, "No se pudo cargar el grafo " + grafo + ": " + carga.body());
+        List<String> ubicaciones = obtenerUbicaciones();
+
+        Map<String, Histogram> histogramas = new LinkedHashMap<>();
+        Map<String, AtomicLong> errores = new LinkedHashMap<>();
+        for (String operacion : mezcla.keySet()) {
+            histogramas.put(operacion, new ConcurrentHistogram(LATENCIA_MAXIMA_US, 3));
+            errores.put(operacion, new AtomicLong());
+        }
+        int pesoTotal = mezcla.values().stream().mapToInt(Integer::intValue).sum();
+
+        System.out.printf("Prueba de carga: grafo=%s, tasa=%.0f req/s, duración=%ds (+%ds de calentamiento), mezcla=%s, formato=%s%n",
+                grafo, tasa, duracionSegundos, calentamientoSegundos, mezcla, formato);
+
+        // Lazo abierto: llegadas de Poisson con la tasa configurada
+        List<CompletableFuture<?>> pendientes = new ArrayList<>();
+        long inicio = System.nanoTime();
+        long finCalentamiento = inicio + TimeUnit.SECONDS.toNanos(calentamientoSegundos);
+        long fin = finCalentamiento + TimeUnit.SECONDS.toNanos(duracionSegundos);
+        double planificado = inicio;
+
+        while (planificado < fin) {
+            long instantePlanificado = (long) planificado;
+            long espera = instantePlanificado - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+
+            String operacion = elegirOperacion(mezcla, pesoTotal, random);
+            HttpRequest solicitud = construirSolicitud(operacion, ubicaciones, k, tamanoLote, formato, csv, random);
+            boolean registrar = instantePlanificado >= finCalentamiento;
+
+            pendientes.add(cliente.sendAsync(solicitud, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((respuesta, error) -> {
+                        if (!registrar) {
+                            return;
+                        }
+                        long latencia = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - instantePlanificado);
+                        histogramas.get(operacion).recordValue(Math.min(latencia, LATENCIA_MAXIMA_US));
+                        if (error != null || respuesta.statusCode() >= 400) {
+                            errores.get(operacion).incrementAndGet();
+                        }
+                    }));
+
+            planificado += -Math.log(1.0 - random.nextDouble()) / tasa * 1_000_000_000L;
+        }
+
+        CompletableFuture.allOf(pendientes.toArray(new CompletableFuture[0]))
+                .exceptionally(error -> null)
+                .get(2, TimeUnit.MINUTES);
+
+        String resumen = escribirReporte(directorioReporte, grafo, tasa, duracionSegundos, histogramas, errores);
+        System.out.println(resumen);
+
+        long completadas = histogramas.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        assertTrue(completadas > 0, "La prueba de carga no registró ninguna solicitud");
+    }
+
+    // Lee la mezcla de tráfico con formato operacion=peso,operacion=peso
+    private static Map<String, Integer> leerMezcla(String mezcla) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for (String parte : mezcla.split(",")) {
+            String[] campos = parte.split("=");
+            int peso = Integer.parseInt(campos[1].trim());
+            if (peso > 0) {
+                pesos.put(campos[0].trim(), peso);
+            }
+        }
+        return pesos;
+    }
+
+    private static String elegirOperacion(Map<String, Integer> mezcla, int pesoTotal, Random random) {
+        int valor = random.nextInt(pesoTotal);
+        for (Map.Entry<String, Integer> entrada : mezcla.entrySet()) {
+            valor -= entrada.getValue();
+            if (valor < 0) {
+                return entrada.getKey();
+            }
+        }
+        throw new IllegalStateException("Mezcla de tráfico inválida: " + mezcla);
+    }
+
+    private HttpRequest construirSolicitud(String operacion, List<String> ubicaciones, int k, int tamanoLote,
+                                           String formato, byte[] csv, Random random) {
+        String origen = ubicaciones.get(random.nextInt(ubicaciones.size()));
+        String destino = ubicaciones.get(random.nextInt(ubicaciones.size()));
+
+        return switch (operacion) {
+            case "ruta" -> HttpRequest.newBuilder(url("/grafo/tiempo/" + origen + "/" + destino))
+                    .header("Accept", formato).GET().build();
+            case "alternativas" -> HttpRequest.newBuilder(url("/grafo/rutas/" + origen + "/" + destino + "?k=" + k)).GET().build();
+            case "lote" -> solicitudLote(ubicaciones, tamanoLote, formato, random);
+            case "upload" -> solicitudUpload(csv);
+            default -> throw new IllegalArgumentException("Operación de carga desconocida: " + operacion);
+        };
+    }
+
+    // Construye un lote de pares origen-destino aleatorios para /grafo/tiempos
+    private HttpRequest solicitudLote(List<String> ubicaciones, int tamanoLote, String formato, Random random) {
+        StringBuilder cuerpo = new StringBuilder("[");
+        for (int i = 0; i < tamanoLote; i++) {
+            if (i > 0) {
+                cuerpo.append(',');
+            }
+            cuerpo.append("{\"origen\":\"").append(ubicaciones.get(random.nextInt(ubicaciones.size())))
+                  .append("\",\"destino\":\"").append(ubicaciones.get(random.nextInt(ubicaciones.size())))
+                  .append("\"}");
+        }
+        cuerpo.append(']');
+
+        return HttpRequest.newBuilder(url("/grafo/tiempos"))
+                .header("Content-Type", "application/json")
+                .header("Accept", formato)
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.toString()))
+                .build();
+    }
+
+    // Construye el cuerpo multipart de /bulk-upload
+    private HttpRequest solicitudUpload(byte[] csv) {
+        String limite = "----randall-carga";
+        ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+        cuerpo.writeBytes(("--" + limite + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"carga.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        cuerpo.writeBytes(csv);
+        cuerpo.writeBytes(("\r\n--" + limite + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(url("/bulk-upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + limite)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(cuerpo.toByteArray()))
+                .build();
+    }
+
+    private List<String> obtenerUbicaciones() throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(
+                HttpRequest.newBuilder(url("/grafo/estado")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode estado = objectMapper.readTree(respuesta.body());
+        List<String> ubicaciones = new ArrayList<>();
+        estado.get("ubicaciones").forEach(nodo -> ubicaciones.add(nodo.asText()));
+        return ubicaciones;
+    }
+
+    // Genera un grafo aleatorio conexo: un anillo más aristas aleatorias por nodo
+    private static byte[] generarGrafo(Random random, Path directorioReporte) throws IOException {
+        int nodos = Integer.parseInt(System.getProperty("carga.generado.nodos", "1000"));
+        int grado = Integer.parseInt(System.getProperty("carga.generado.grado", "8"));
+
+        StringBuilder csv = new StringBuilder("loc_start;loc_end;time\n");
+        for (int i = 0; i < nodos; i++) {
+            csv.append('G').append(i).append(";G").append((i + 1) % nodos)
+               .append(';').append(1 + random.nextInt(100)).append('\n');
+            for (int j = 1; j < grado; j++) {
+                csv.append('G').append(i).append(";G").append(random.nextInt(nodos))
+                   .append(';').append(1 + random.nextInt(100)).append('\n');
+            }
+        }
+
+        byte[] contenido = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(directorioReporte.resolve("grafo_generado.csv"), contenido);
+        return contenido;
+    }
+
+    // Escribe un archivo .hgrm por operación y un resumen con los percentiles principales
+    private static String escribirReporte(Path directorio, String grafo, double tasa, int duracionSegundos,
+                                          Map<String, Histogram> histogramas, Map<String, AtomicLong> errores) throws IOException {
+        StringBuilder resumen = new StringBuilder();
+        resumen.append(String.format("Grafo: %s | Tasa objetivo: %.0f req/s | Duración medida: %ds%n", grafo, tasa, duracionSegundos));
+        resumen.append(String.format("%-14s %10s %10s %10s %10s %10s %10s %8s%n",
+                "operacion", "total", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "errores"));
+
+        for (Map.Entry<String, Histogram> entrada : histogramas.entrySet()) {
+            Histogram histograma = entrada.getValue();
+            try (PrintStream salida = new PrintStream(
+                    Files.newOutputStream(directorio.resolve(entrada.getKey() + ".hgrm")), true, StandardCharsets.UTF_8)) {
+                histograma.outputPercentileDistribution(salida, 1000.0);
+            }
+            resumen.append(String.format("%-14s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    entrada.getKey(),
+                    histograma.getTotalCount(),
+                    histograma.getTotalCount() / (double) duracionSegundos,
+                    histograma.getValueAtPercentile(50.0) / 1000.0,
+                    histograma.getValueAtPercentile(99.0) / 1000.0,
+                    histograma.getValueAtPercentile(99.9) / 1000.0,
+                    histograma.getMaxValue() / 1000.0,
+                    errores.get(entrada.getKey()).get()));
+        }
+
+        Files.writeString(directorio.resolve("resumen.txt"), resumen.toString());
+        return resumen.toString();
+    }
+
+    private URI url(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+}
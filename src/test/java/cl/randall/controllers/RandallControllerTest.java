@@ -1,6 +1,11 @@
 package cl.randall.controllers;
 
+import cl.randall.models.EstadisticasBusqueda;
+import cl.randall.models.EstadisticasReparacion;
 import cl.randall.services.GrafoService;
+import cl.randall.services.RegistroConsultasLentas;
+import cl.randall.services.RegistroGrafos;
+import cl.randall.services.ReplicacionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -9,6 +14,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.http.MediaType;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 
 import java.util.Arrays;
 import java.util.List;
@@ -20,6 +26,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @WebMvcTest(RandallController.class)
@@ -31,6 +38,15 @@ class RandallControllerTest {
     @MockBean
     private GrafoService grafoService;
 
+    @MockBean
+    private RegistroConsultasLentas registroConsultasLentas;
+
+    @MockBean
+    private ReplicacionService replicacionService;
+
+    @MockBean
+    private RegistroGrafos registroGrafos;
+
     @BeforeEach
     void setUp() {
         // Configurar mocks básicos
@@ -162,4 +178,156 @@ class RandallControllerTest {
                 .contentType(MediaType.MULTIPART_FORM_DATA_VALUE))
                 .andExpect(status().isBadRequest()); // Esperamos un error porque no se envía archivo
     }
+    
+    @Test
+    @DisplayName("GET /grafo/rutas/{origen}/{destino} debería retornar rutas alternativas")
+    void deberiaRetornarRutasAlternativas() throws Exception {
+        when(grafoService.encontrarRutasAlternativas("R01", "CP100", 2)).thenReturn(Arrays.asList(
+            new cl.randall.models.ResultadoRuta(Arrays.asList("R01", "CP100"), 100),
+            new cl.randall.models.ResultadoRuta(Arrays.asList("R01", "E121", "CP100"), 120)
+        ));
+        
+        mockMvc.perform(get("/grafo/rutas/R01/CP100?k=2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRutas").value(2))
+                .andExpect(jsonPath("$.rutas[0].tiempoTotal").value(100))
+                .andExpect(jsonPath("$.rutas[1].ruta[1]").value("E121"))
+                .andExpect(jsonPath("$.mensaje").doesNotExist());
+        
+        // Sin rutas entre las ubicaciones
+        when(grafoService.encontrarRutasAlternativas("R01", "NODO_INEXISTENTE", 3)).thenReturn(List.of());
+        mockMvc.perform(get("/grafo/rutas/R01/NODO_INEXISTENTE")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRutas").value(0))
+                .andExpect(jsonPath("$.rutas").isEmpty())
+                .andExpect(jsonPath("$.mensaje").value("No existe ruta entre las ubicaciones especificadas"));
+        
+        // k fuera de rango
+        mockMvc.perform(get("/grafo/rutas/R01/CP100?k=0")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("GET /grafo/tiempo/{origen}/{destino}?explain=true debería incluir estadísticas")
+    void deberiaIncluirEstadisticasConExplain() throws Exception {
+        when(grafoService.encontrarRutaMasRapida(anyString(), anyString(), any(EstadisticasBusqueda.class)))
+            .thenAnswer(invocacion -> {
+                EstadisticasBusqueda estadisticas = invocacion.getArgument(2);
+                estadisticas.setAlgoritmo("dijkstra");
+                estadisticas.setNodosAsentados(12);
+                return new cl.randall.models.ResultadoRuta(Arrays.asList("R01", "CP100"), 100);
+            });
+        
+        mockMvc.perform(get("/grafo/tiempo/R01/CP100?explain=true")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tiempoTotal").value(100))
+                .andExpect(jsonPath("$.estadisticas.algoritmo").value("dijkstra"))
+                .andExpect(jsonPath("$.estadisticas.nodosAsentados").value(12))
+                .andExpect(jsonPath("$.estadisticas.tiempoMs").isNumber());
+        
+        // Sin explain la respuesta no incluye estadísticas
+        mockMvc.perform(get("/grafo/tiempo/R01/CP100")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estadisticas").doesNotExist());
+    }
+    
+    @Test
+    @DisplayName("GET /grafo/tiempo/{origen}/{destino} debería responder en CBOR cuando se solicita")
+    void deberiaResponderEnCbor() throws Exception {
+        byte[] contenido = mockMvc.perform(get("/grafo/tiempo/R01/CP100")
+                .accept(MediaType.parseMediaType("application/cbor")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        com.fasterxml.jackson.databind.JsonNode respuesta = new CBORMapper().readTree(contenido);
+        assertEquals("R01", respuesta.get("origen").asText());
+        assertEquals(100, respuesta.get("tiempoTotal").asInt());
+        assertEquals("CP100", respuesta.get("ruta").get(1).asText());
+    }
+    
+    @Test
+    @DisplayName("POST /grafo/tiempos debería responder con diccionario de ubicaciones")
+    void deberiaResponderLoteConDiccionario() throws Exception {
+        mockMvc.perform(post("/grafo/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"origen\":\"R01\",\"destino\":\"CP100\"},{\"origen\":\"NODO_INEXISTENTE\",\"destino\":\"OTRO_NODO\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ubicaciones[0]").value("R01"))
+                .andExpect(jsonPath("$.ubicaciones[1]").value("CP100"))
+                .andExpect(jsonPath("$.resultados[0].ruta[1]").value(1))
+                .andExpect(jsonPath("$.resultados[0].tiempoTotal").value(100))
+                .andExpect(jsonPath("$.resultados[1].origen").value(2))
+                .andExpect(jsonPath("$.resultados[1].ruta").isEmpty());
+        
+        // Lote vacío
+        mockMvc.perform(post("/grafo/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+        
+        // Consultas nulas o incompletas
+        mockMvc.perform(post("/grafo/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("La consulta 0 debe indicar origen y destino"));
+        
+        mockMvc.perform(post("/grafo/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"origen\":\"R01\",\"destino\":\"CP100\"},{\"origen\":\"R01\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.mensaje").value("La consulta 1 debe indicar origen y destino"));
+    }
+    
+    @Test
+    @DisplayName("Consultar un grafo con nombre inexistente debería responder 404")
+    void deberiaResponder404ParaGrafoInexistente() throws Exception {
+        mockMvc.perform(get("/grafo/tiempo/R01/CP100").param("grafo", "norte"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.mensaje").value("No existe el grafo 'norte'"));
+    }
+    
+    @Test
+    @DisplayName("Un seguidor debería responder 409 a los grafos con nombre, que no se replican")
+    void deberiaResponder409ParaGrafoConNombreEnSeguidor() throws Exception {
+        when(replicacionService.isSeguidor()).thenReturn(true);
+        
+        mockMvc.perform(get("/grafo/tiempo/R01/CP100").param("grafo", "norte"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.mensaje").value(org.hamcrest.Matchers.containsString("no se replican")));
+        
+        // El grafo principal se sigue consultando normalmente
+        mockMvc.perform(get("/grafo/tiempo/R01/CP100"))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @DisplayName("POST /grafo/conexiones/tiempos debería aplicar cambios válidos y rechazar tiempos negativos")
+    void deberiaActualizarTiemposDeConexiones() throws Exception {
+        EstadisticasReparacion reparacion = new EstadisticasReparacion();
+        reparacion.setCambiosAplicados(1);
+        reparacion.setArbolesReparados(2);
+        reparacion.setAristasRelajadas(10);
+        reparacion.setAristasRecalculoCompleto(100);
+        when(grafoService.actualizarTiempos(any())).thenReturn(reparacion);
+        
+        mockMvc.perform(post("/grafo/conexiones/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"locStart\":\"R01\",\"locEnd\":\"CP100\",\"time\":42}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cambiosAplicados").value(1))
+                .andExpect(jsonPath("$.arbolesReparados").value(2))
+                .andExpect(jsonPath("$.trabajoRelativo").value(0.1));
+        
+        mockMvc.perform(post("/grafo/conexiones/tiempos")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"locStart\":\"R01\",\"locEnd\":\"CP100\",\"time\":-1}]"))
+                .andExpect(status().isBadRequest());
+    }
 }
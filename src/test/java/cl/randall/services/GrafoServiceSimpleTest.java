@@ -1,12 +1,16 @@
 package cl.randall.services;
 
 import cl.randall.models.ConexionGrafo;
+import cl.randall.models.EstadisticasBusqueda;
+import cl.randall.models.EstadisticasReparacion;
 import cl.randall.models.ResultadoRuta;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -158,4 +162,114 @@ class GrafoServiceSimpleTest {
                 "El tiempo total entre " + origen + " y " + destino + " debería ser mayor a 0");
         }
     }
+
+    @Test
+    @DisplayName("Debería encontrar rutas alternativas sin ciclos ordenadas por tiempo")
+    void deberiaEncontrarRutasAlternativasOrdenadas() {
+        String origen = "R01";
+        String destino = "CP100";
+        
+        long startTime = System.currentTimeMillis();
+        List<ResultadoRuta> rutas = grafoService.encontrarRutasAlternativas(origen, destino, 3);
+        long endTime = System.currentTimeMillis();
+        long tiempoEjecucion = endTime - startTime;
+        
+        // Verificar tiempo de respuesta
+        assertTrue(tiempoEjecucion < 300, 
+            "El tiempo de ejecución debería ser menor a 300ms, pero fue: " + tiempoEjecucion + "ms");
+        
+        // La primera alternativa debe coincidir con la ruta más rápida
+        assertEquals(3, rutas.size(), "Debería encontrar 3 rutas alternativas");
+        ResultadoRuta masRapida = grafoService.encontrarRutaMasRapida(origen, destino);
+        assertEquals(masRapida.getTiempoTotal(), rutas.get(0).getTiempoTotal(), 
+            "La primera alternativa debería ser la ruta más rápida");
+        
+        Set<List<String>> rutasDistintas = new HashSet<>();
+        for (int i = 0; i < rutas.size(); i++) {
+            List<String> ruta = rutas.get(i).getRuta();
+            assertEquals(origen, ruta.get(0), "La ruta debería comenzar en el origen");
+            assertEquals(destino, ruta.get(ruta.size() - 1), "La ruta debería terminar en el destino");
+            assertEquals(ruta.size(), new HashSet<>(ruta).size(), "La ruta no debería contener ciclos");
+            assertTrue(rutasDistintas.add(ruta), "Las rutas alternativas deberían ser distintas");
+            if (i > 0) {
+                assertTrue(rutas.get(i - 1).getTiempoTotal() <= rutas.get(i).getTiempoTotal(), 
+                    "Las rutas deberían estar ordenadas por tiempo total");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Debería registrar estadísticas de la búsqueda cuando se solicitan")
+    void deberiaRegistrarEstadisticasDeBusqueda() {
+        EstadisticasBusqueda estadisticas = new EstadisticasBusqueda();
+        ResultadoRuta resultado = grafoService.encontrarRutaMasRapida("R01", "C198", estadisticas);
+        
+        assertNotNull(resultado, "Debería encontrar una ruta entre R01 y C198");
+        assertEquals("dijkstra", estadisticas.getAlgoritmo());
+        assertTrue(estadisticas.getNodosAsentados() >= resultado.getRuta().size(), 
+            "Debería asentar al menos los nodos de la ruta");
+        assertTrue(estadisticas.getAristasRelajadas() > 0, "Debería relajar aristas");
+        assertTrue(estadisticas.getPicoCola() > 0, "La cola debería tener al menos un elemento");
+        assertEquals(0, grafoService.obtenerBytesArboles(), "Una sola consulta no debería guardar el árbol");
+        
+        // Al repetir el origen se calcula su árbol completo, y desde entonces se responde desde el caché
+        EstadisticasBusqueda completo = new EstadisticasBusqueda();
+        assertEquals(resultado.getTiempoTotal(), grafoService.encontrarRutaMasRapida("R01", "C198", completo).getTiempoTotal());
+        assertEquals("arbol-completo", completo.getAlgoritmo());
+        assertTrue(completo.getNodosAsentados() >= estadisticas.getNodosAsentados(),
+            "El árbol completo debería asentar al menos los nodos que Dijkstra asentó hasta el destino");
+        
+        EstadisticasBusqueda cacheado = new EstadisticasBusqueda();
+        assertEquals(resultado.getTiempoTotal(), grafoService.encontrarRutaMasRapida("R01", "C198", cacheado).getTiempoTotal());
+        assertEquals("arbol-cacheado", cacheado.getAlgoritmo());
+    }
+
+    @Test
+    @DisplayName("Debería reparar los árboles en caché al actualizar tiempos sin recalcularlos")
+    void deberiaRepararArbolesAlActualizarTiempos() {
+        // La segunda consulta desde R01 guarda su árbol en caché
+        grafoService.encontrarRutaMasRapida("R01", "C198");
+        ResultadoRuta original = grafoService.encontrarRutaMasRapida("R01", "C198");
+        assertNotNull(original, "Debería encontrar una ruta entre R01 y C198");
+        
+        // Hacer muy lenta la primera conexión de la ruta y agregar un atajo nuevo a otro destino
+        List<String> ruta = original.getRuta();
+        EstadisticasReparacion reparacion = grafoService.actualizarTiempos(List.of(
+            new ConexionGrafo(ruta.get(0), ruta.get(1), 100000),
+            new ConexionGrafo("R01", "CP100", 0)
+        ));
+        
+        assertEquals(2, reparacion.getCambiosAplicados());
+        assertEquals(1, reparacion.getArbolesReparados());
+        assertTrue(reparacion.getAristasRelajadas() < reparacion.getAristasRecalculoCompleto(),
+            "La reparación debería relajar menos aristas que un recálculo completo");
+        
+        // El árbol reparado debe coincidir con un cálculo desde cero sobre el grafo actualizado
+        GrafoService recalculado = new GrafoService();
+        recalculado.reemplazarGrafo(grafoService.obtenerInstantanea().getGrafoPorOrigen());
+        for (String destino : List.of("C198", "CP100", ruta.get(1))) {
+            EstadisticasBusqueda estadisticas = new EstadisticasBusqueda();
+            ResultadoRuta reparada = grafoService.encontrarRutaMasRapida("R01", destino, estadisticas);
+            assertEquals("arbol-cacheado", estadisticas.getAlgoritmo());
+            assertEquals(recalculado.encontrarRutaMasRapida("R01", destino).getTiempoTotal(), reparada.getTiempoTotal(),
+                "El tiempo hacia " + destino + " debería coincidir con el recálculo");
+        }
+        assertEquals(0, grafoService.encontrarRutaMasRapida("R01", "CP100").getTiempoTotal());
+    }
+
+    @Test
+    @DisplayName("El caché de árboles debería respetar su memoria máxima")
+    void deberiaAcotarMemoriaDelCacheDeArboles() {
+        grafoService.setMemoriaMaximaArbolesMb(1);
+        List<String> ubicaciones = grafoService.obtenerUbicacionesUnicas();
+        for (String origen : ubicaciones.subList(0, 64)) {
+            grafoService.encontrarRutaMasRapida(origen, "C198");
+            grafoService.encontrarRutaMasRapida(origen, "C198");
+        }
+        
+        assertTrue(grafoService.obtenerBytesArboles() > 0, "Debería haber árboles en caché");
+        assertTrue(grafoService.obtenerBytesArboles() <= 1024 * 1024,
+            "Los árboles en caché no deberían superar 1 MB: " + grafoService.obtenerBytesArboles());
+        assertEquals(1024 * 1024, grafoService.obtenerBytesMaximosArboles());
+    }
 }
@@ -0,0 +1,39 @@
+package cl.randall.services;
+
+import cl.randall.models.ConsultaLenta;
+import cl.randall.models.EstadisticasBusqueda;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistroConsultasLentasTest {
+
+    @Test
+    @DisplayName("Una ráfaga de consultas apenas sobre el umbral no debería desplazar a las más lentas")
+    void deberiaConservarLasConsultasMasLentas() {
+        RegistroConsultasLentas registro = new RegistroConsultasLentas(true, 50, 3, 300);
+        
+        registro.registrar("A", "B", estadisticas(400));
+        registro.registrar("C", "D", estadisticas(250));
+        for (int i = 0; i < 1000; i++) {
+            registro.registrar("E", "F", estadisticas(51 + (i % 5)));
+        }
+        registro.registrar("G", "H", estadisticas(10));
+        
+        List<ConsultaLenta> consultas = registro.obtenerConsultasLentas();
+        assertEquals(3, consultas.size());
+        assertEquals(400, consultas.get(0).getEstadisticas().getTiempoMs());
+        assertEquals(250, consultas.get(1).getEstadisticas().getTiempoMs());
+        assertEquals(55, consultas.get(2).getEstadisticas().getTiempoMs());
+        assertEquals(1002, registro.getTotalRegistradas());
+    }
+
+    private static EstadisticasBusqueda estadisticas(double tiempoMs) {
+        EstadisticasBusqueda estadisticas = new EstadisticasBusqueda();
+        estadisticas.setTiempoMs(tiempoMs);
+        return estadisticas;
+    }
+}
@@ -0,0 +1,82 @@
+package cl.randall.services;
+
+import cl.randall.models.ConexionGrafo;
+import cl.randall.models.ResultadoRuta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistroGrafosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    @DisplayName("Debería descargar el grafo menos usado al superar el presupuesto y recargarlo desde disco")
+    void deberiaDescargarYRecargarGrafos() throws Exception {
+        // Con presupuesto cero solo queda en memoria el último grafo usado
+        RegistroGrafos registro = new RegistroGrafos(0, 8, directorio.toString());
+        
+        GrafoService norte = registro.cargar("norte", archivo("grafos_full.csv"));
+        assertNotNull(norte);
+        ResultadoRuta rutaNorte = norte.encontrarRutaMasRapida("R01", "CP100");
+        assertTrue(Files.exists(directorio.resolve("norte.grafo")));
+        
+        assertNotNull(registro.cargar("sur", archivo("ejemplo_bulk_upload.csv")));
+        assertEquals(false, metrica(registro, "norte").get("enMemoria"));
+        assertEquals(1L, metrica(registro, "norte").get("descargas"));
+        assertEquals(true, metrica(registro, "sur").get("enMemoria"));
+        
+        // La consulta recarga el grafo desde disco con el mismo contenido
+        GrafoService recargado = registro.obtener("norte");
+        assertNotNull(recargado);
+        assertEquals(rutaNorte.getTiempoTotal(), recargado.encontrarRutaMasRapida("R01", "CP100").getTiempoTotal());
+        assertEquals(1L, metrica(registro, "norte").get("recargas"));
+        assertEquals(false, metrica(registro, "sur").get("enMemoria"));
+        
+        registro.registrarConsulta("norte", 2_000_000);
+        assertEquals(1L, metrica(registro, "norte").get("consultas"));
+        assertEquals(2.0, metrica(registro, "norte").get("tiempoMedioConsultaMs"));
+        
+        assertNull(registro.obtener("inexistente"));
+        assertThrows(IllegalArgumentException.class, () -> registro.cargar("../fuera", archivo("grafos_full.csv")));
+    }
+
+    @Test
+    @DisplayName("La estimación de memoria debería incluir el caché de árboles y crecer con conexiones nuevas")
+    void deberiaReestimarMemoriaAlActualizarTiempos() throws Exception {
+        RegistroGrafos registro = new RegistroGrafos(256, 8, directorio.toString());
+        registro.cargar("norte", archivo("ejemplo_bulk_upload.csv"));
+        long antes = (Long) metrica(registro, "norte").get("bytesEstimados");
+        
+        registro.actualizarTiempos("norte", List.of(new ConexionGrafo("R01", "NUEVO", 5)));
+        long despues = (Long) metrica(registro, "norte").get("bytesEstimados");
+        
+        assertTrue(despues > antes, "La conexión y el nodo nuevos deberían aumentar la estimación");
+        // El caché de árboles puede guardar un árbol por origen con todos los nodos del grafo
+        assertTrue(despues >= registro.obtener("norte").obtenerBytesMaximosArboles());
+        assertTrue(registro.obtener("norte").obtenerBytesMaximosArboles() > 0);
+        
+        // Un tiempo mayor que 127 ya no sale del caché de Integer y ocupa su propio objeto
+        registro.actualizarTiempos("norte", List.of(new ConexionGrafo("R01", "R02", 500)));
+        assertEquals(despues + 16, (Long) metrica(registro, "norte").get("bytesEstimados"));
+    }
+
+    private static MockMultipartFile archivo(String nombre) throws Exception {
+        return new MockMultipartFile("file", nombre, "text/csv", new ClassPathResource(nombre).getInputStream());
+    }
+
+    private static Map<String, Object> metrica(RegistroGrafos registro, String nombre) {
+        List<Map<String, Object>> metricas = registro.obtenerMetricas();
+        return metricas.stream().filter(m -> m.get("nombre").equals(nombre)).findFirst().orElseThrow();
+    }
+}
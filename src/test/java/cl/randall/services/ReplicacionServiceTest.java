@@ -0,0 +1,107 @@
+package cl.randall.services;
+
+import cl.randall.RandallApp;
+import cl.randall.models.ConexionGrafo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicacionServiceTest {
+
+    @Test
+    @DisplayName("El grafo compilado debería conservar todas las conexiones")
+    void deberiaSerializarYDeserializarGrafoCompilado() throws Exception {
+        GrafoService grafoService = new GrafoService("grafos_full.csv");
+        Map<String, List<ConexionGrafo>> original = grafoService.obtenerInstantanea().getGrafoPorOrigen();
+        
+        byte[] contenido = GrafoBinario.serializar(original);
+        Map<String, List<ConexionGrafo>> copia = GrafoBinario.deserializar(contenido);
+        
+        assertEquals(original, copia, "El grafo deserializado debería ser igual al original");
+        
+        // Un contenido truncado debe rechazarse
+        byte[] truncado = java.util.Arrays.copyOf(contenido, contenido.length / 2);
+        assertThrows(java.io.IOException.class, () -> GrafoBinario.deserializar(truncado));
+    }
+
+    @Test
+    @DisplayName("Un seguidor debería replicar el grafo del primario entre instancias en localhost")
+    void deberiaReplicarGrafoEntreInstancias() throws Exception {
+        try (ConfigurableApplicationContext primario = iniciar("randall.replicacion.modo=primario")) {
+            String puerto = primario.getEnvironment().getProperty("local.server.port");
+            
+            try (ConfigurableApplicationContext seguidor = iniciar(
+                    "randall.replicacion.modo=seguidor",
+                    "randall.replicacion.primario-url=http://localhost:" + puerto,
+                    "randall.replicacion.intervalo-ms=100")) {
+                
+                // Cargar un grafo nuevo en el primario
+                GrafoService grafoPrimario = primario.getBean(GrafoService.class);
+                assertTrue(grafoPrimario.cargarGrafoDesdeArchivo(new MockMultipartFile(
+                    "file", "ejemplo_bulk_upload.csv", "text/csv",
+                    new ClassPathResource("ejemplo_bulk_upload.csv").getInputStream())));
+                Set<ConexionGrafo> esperadas = new HashSet<>(grafoPrimario.obtenerTodasLasConexiones());
+                
+                // Esperar a que el seguidor lo replique
+                GrafoService grafoSeguidor = seguidor.getBean(GrafoService.class);
+                long limite = System.currentTimeMillis() + 10_000;
+                while (!esperadas.equals(new HashSet<>(grafoSeguidor.obtenerTodasLasConexiones()))
+                        && System.currentTimeMillis() < limite) {
+                    Thread.sleep(50);
+                }
+                
+                assertEquals(esperadas, new HashSet<>(grafoSeguidor.obtenerTodasLasConexiones()), 
+                    "El seguidor debería tener el mismo grafo que el primario");
+                
+                Map<String, Object> estado = seguidor.getBean(ReplicacionService.class).obtenerEstado();
+                assertEquals(true, estado.get("alDia"), "El seguidor debería estar al día: " + estado);
+                assertEquals(0L, estado.get("retrasoMs"));
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Un seguidor con otro archivo local debería arrancar sirviendo el grafo del primario")
+    void deberiaIgnorarArchivoLocalDelSeguidor() throws Exception {
+        try (ConfigurableApplicationContext primario = iniciar(
+                "randall.replicacion.modo=primario", "randall.grafo.archivo=ejemplo_bulk_upload.csv")) {
+            String puerto = primario.getEnvironment().getProperty("local.server.port");
+            
+            // El arranque del seguidor termina solo después de aplicar el grafo del primario
+            try (ConfigurableApplicationContext seguidor = iniciar(
+                    "randall.replicacion.modo=seguidor",
+                    "randall.replicacion.primario-url=http://localhost:" + puerto,
+                    "randall.replicacion.intervalo-ms=100",
+                    "randall.grafo.archivo=grafos_full.csv")) {
+                
+                Set<ConexionGrafo> esperadas = new HashSet<>(primario.getBean(GrafoService.class).obtenerTodasLasConexiones());
+                assertEquals(esperadas, new HashSet<>(seguidor.getBean(GrafoService.class).obtenerTodasLasConexiones()),
+                    "El seguidor debería servir el grafo del primario y no su archivo local");
+                
+                Map<String, Object> estado = seguidor.getBean(ReplicacionService.class).obtenerEstado();
+                assertEquals(true, estado.get("alDia"), "El seguidor debería estar al día: " + estado);
+            }
+        }
+    }
+    
+    // Levanta una instancia completa en un puerto aleatorio, sin calentamiento y con bloques pequeños
+    private static ConfigurableApplicationContext iniciar(String... propiedades) {
+        List<String> argumentos = new ArrayList<>(List.of(
+            "--server.port=0", "--randall.calentamiento.habilitado=false", "--randall.replicacion.tamano-bloque=64"));
+        for (String propiedad : propiedades) {
+            argumentos.add("--" + propiedad);
+        }
+        return new SpringApplicationBuilder(RandallApp.class).run(argumentos.toArray(new String[0]));
+    }
+}